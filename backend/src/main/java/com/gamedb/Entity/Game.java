@@ -4,6 +4,8 @@ import javax.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -13,6 +15,8 @@ import java.util.Set;
 
 @Entity
 @Table(name = "games")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "games")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -41,16 +45,19 @@ public class Game {
     private String steamLink;
 
     @ElementCollection
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "games.additionalImageUrls")
     @CollectionTable(name = "game_additional_images", joinColumns = @JoinColumn(name = "game_id"))
     @Column(name = "image_url")
     private List<String> additionalImageUrls = new java.util.ArrayList<>();
 
     @ElementCollection
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "games.additionalVideoUrls")
     @CollectionTable(name = "game_additional_videos", joinColumns = @JoinColumn(name = "game_id"))
     @Column(name = "video_url")
     private List<String> additionalVideoUrls = new java.util.ArrayList<>();
 
     @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "games.tags")
     @JoinTable(name = "game_tags",
             joinColumns = @JoinColumn(name = "game_id"),
             inverseJoinColumns = @JoinColumn(name = "tag_id"))
@@ -6,7 +6,8 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
-@Table(name = "user_favorite_games")
+@Table(name = "user_favorite_games",
+        uniqueConstraints = @UniqueConstraint(name = "uk_user_favorite_games_user_game", columnNames = {"user_id", "game_id"}))
 @Getter
 @Setter
 @NoArgsConstructor
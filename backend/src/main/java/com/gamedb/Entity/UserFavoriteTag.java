@@ -6,7 +6,8 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
-@Table(name = "user_favorite_tags")
+@Table(name = "user_favorite_tags",
+        uniqueConstraints = @UniqueConstraint(name = "uk_user_favorite_tags_user_tag", columnNames = {"user_id", "tag_id"}))
 @Getter
 @Setter
 @NoArgsConstructor
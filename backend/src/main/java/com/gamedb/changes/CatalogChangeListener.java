@@ -0,0 +1,226 @@
+package com.gamedb.changes;
+
+import com.gamedb.Entity.Game;
+import com.gamedb.Entity.Tag;
+import com.gamedb.datasource.ReplicaRoutingDataSource;
+import com.gamedb.security.PrincipalCache;
+import com.gamedb.service.CatalogVersion;
+import com.gamedb.service.GameService;
+import com.gamedb.service.TagService;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Applies the catalog changes committed by other nodes: evicts the second-level cache
+ * entries of the changed game, tag or user and brings the in-memory indexes, the tag
+ * dictionary and the principal cache in line with the database.
+ * <p>
+ * A dedicated connection LISTENs for the commit notifications and the table is also
+ * read every {@code poll-interval}, so a dropped notification or connection only delays
+ * a change. Each applied change advances the {@link CatalogVersion} to its id. Writers
+ * commit in id order, but rows inserted by other means may not, so rows younger than
+ * {@code settle-window} are read again on every pass, and applied once.
+ */
+@Component
+public class CatalogChangeListener implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(CatalogChangeListener.class);
+
+    private static final String CHANNEL = "catalog_changes";
+    private static final String LATEST = "SELECT id, created_at FROM catalog_changes ORDER BY id DESC LIMIT 1";
+    private static final String CHANGES_AFTER = "SELECT id, entity, entity_id, origin, created_at, "
+            + "created_at < clock_timestamp() - make_interval(secs => ?) AS settled "
+            + "FROM catalog_changes WHERE id > ? ORDER BY id";
+    // Keeps the latest change whatever its age, since it is the catalog version.
+    private static final String PRUNE = "DELETE FROM catalog_changes WHERE created_at < clock_timestamp() - make_interval(secs => ?) "
+            + "AND id < (SELECT max(id) FROM catalog_changes)";
+    private static final String GAME_TITLE = "SELECT title FROM games WHERE id = ?";
+    private static final String GAME_TAGS = "SELECT tag_id FROM game_tags WHERE game_id = ?";
+    private static final String USERNAME = "SELECT username FROM users WHERE id = ?";
+    private static final String[] GAME_COLLECTIONS = {"tags", "additionalImageUrls", "additionalVideoUrls"};
+    private static final String CATALOG_QUERIES = "catalog-queries";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final CatalogChangeLog changeLog;
+    private final GameService gameService;
+    private final TagService tagService;
+    private final PrincipalCache principalCache;
+    private final CatalogVersion catalogVersion;
+    private final SessionFactory sessionFactory;
+    private final Duration pollInterval;
+    private final Duration settleWindow;
+    private final Duration retention;
+    private final Thread listener;
+    // Changes above the watermark that have been applied already.
+    private final Set<Long> applied = new HashSet<>();
+    private volatile boolean running = true;
+    private long watermark;
+    private Instant prunedAt = Instant.EPOCH;
+
+    public CatalogChangeListener(DataSource dataSource, JdbcTemplate jdbcTemplate, CatalogChangeLog changeLog,
+                                 GameService gameService, TagService tagService, PrincipalCache principalCache,
+                                 CatalogVersion catalogVersion, EntityManagerFactory entityManagerFactory,
+                                 @Value("${gamedb.changes.poll-interval:5s}") Duration pollInterval,
+                                 @Value("${gamedb.changes.settle-window:30s}") Duration settleWindow,
+                                 @Value("${gamedb.changes.retention:1d}") Duration retention) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.changeLog = changeLog;
+        this.gameService = gameService;
+        this.tagService = tagService;
+        this.principalCache = principalCache;
+        this.catalogVersion = catalogVersion;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.pollInterval = pollInterval;
+        this.settleWindow = settleWindow;
+        this.retention = retention;
+        this.listener = new Thread(this::listen, "catalog-changes");
+        this.listener.setDaemon(true);
+    }
+
+    /**
+     * Notes where the feed stands before the indexes load, so the changes committed while
+     * they load are applied again afterwards rather than missed. The indexes then cover
+     * that change, so it is also the catalog version to start from.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void markStart() {
+        jdbcTemplate.query(LATEST, rs -> {
+            watermark = rs.getLong("id");
+            catalogVersion.advance(watermark, rs.getTimestamp("created_at").toInstant());
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void start() {
+        listener.start();
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        listener.interrupt();
+    }
+
+    private void listen() {
+        // The feed has to see what was just committed, which a lagging replica may not have yet.
+        ReplicaRoutingDataSource.usePrimary();
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection notifications = connection.unwrap(PGConnection.class);
+                while (running) {
+                    catchUp();
+                    notifications.getNotifications((int) pollInterval.toMillis());
+                }
+            } catch (SQLException | RuntimeException ex) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Catalog change feed failed, retrying in {}", pollInterval, ex);
+                try {
+                    Thread.sleep(pollInterval.toMillis());
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void catchUp() {
+        List<Change> changes = jdbcTemplate.query(CHANGES_AFTER, (rs, row) -> new Change(rs.getLong("id"),
+                        rs.getString("entity"), rs.getLong("entity_id"),
+                        rs.getString("origin"), rs.getTimestamp("created_at").toInstant(), rs.getBoolean("settled")),
+                settleWindow.toSeconds(), watermark);
+        boolean settled = true;
+        for (Change change : changes) {
+            if (!applied.contains(change.id())) {
+                if (!change.origin().equals(changeLog.getOrigin())) {
+                    applyOrSkip(change);
+                }
+                applied.add(change.id());
+                catalogVersion.advance(change.id(), change.createdAt());
+            }
+            settled = settled && change.settled();
+            if (settled) {
+                watermark = change.id();
+            }
+        }
+        applied.removeIf(id -> id <= watermark);
+
+        if (prunedAt.isBefore(Instant.now().minus(Duration.ofHours(1)))) {
+            jdbcTemplate.update(PRUNE, retention.toSeconds());
+            prunedAt = Instant.now();
+        }
+    }
+
+    /**
+     * Applies a change, or logs and skips it when it cannot be applied, so one bad row
+     * does not hold up the feed. Database errors are left to the feed loop, which
+     * retries the change on its next pass.
+     */
+    private void applyOrSkip(Change change) {
+        try {
+            apply(change);
+        } catch (DataAccessException ex) {
+            throw ex;
+        } catch (RuntimeException ex) {
+            log.error("Skipping catalog change {} ({} {})", change.id(), change.entity(), change.entityId(), ex);
+        }
+    }
+
+    private void apply(Change change) {
+        Cache cache = sessionFactory.getCache();
+        switch (ChangedEntity.valueOf(change.entity())) {
+            case GAME -> {
+                cache.evictEntityData(Game.class, change.entityId());
+                for (String collection : GAME_COLLECTIONS) {
+                    cache.evictCollectionData(Game.class.getName() + "." + collection, change.entityId());
+                }
+                cache.evictQueryRegion(CATALOG_QUERIES);
+                List<String> titles = jdbcTemplate.queryForList(GAME_TITLE, String.class, change.entityId());
+                if (!titles.isEmpty()) {
+                    gameService.indexGame(change.entityId(), titles.get(0),
+                            jdbcTemplate.queryForList(GAME_TAGS, Long.class, change.entityId()));
+                }
+            }
+            case TAG -> {
+                cache.evictEntityData(Tag.class, change.entityId());
+                tagService.reindex(change.entityId());
+            }
+            case USER -> jdbcTemplate.queryForList(USERNAME, String.class, change.entityId())
+                    .forEach(principalCache::invalidateUser);
+        }
+    }
+
+    private record Change(long id, String entity, long entityId, String origin, Instant createdAt,
+                          boolean settled) {
+    }
+}
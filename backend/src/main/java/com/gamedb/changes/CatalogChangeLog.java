@@ -0,0 +1,131 @@
+package com.gamedb.changes;
+
+import com.gamedb.service.CatalogVersion;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Records catalog mutations in {@code catalog_changes}. Callers must already be in the
+ * transaction that makes the change, so a change is published exactly when it commits.
+ * <p>
+ * The rows are only written right before the transaction commits, after a
+ * transaction-scoped advisory lock. Writers on every node so commit their changes in id
+ * order, which makes the latest id applied a version of the whole catalog, while the
+ * lock is held only from the id draw to the commit rather than for the whole write.
+ */
+@Component
+public class CatalogChangeLog {
+    private static final String LOCK = "SELECT pg_advisory_xact_lock(hashtext('catalog_changes'))";
+    private static final String INSERT = "WITH inserted AS (INSERT INTO catalog_changes (entity, entity_id, origin) "
+            + "SELECT ?, unnest(?::bigint[]), ? RETURNING id, created_at) "
+            + "SELECT id, created_at FROM inserted ORDER BY id DESC LIMIT 1";
+    private static final RowMapper<CatalogVersion.Stamp> STAMP = (rs, row) ->
+            new CatalogVersion.Stamp(rs.getLong("id"), rs.getTimestamp("created_at").toInstant());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CatalogVersion catalogVersion;
+    // Tells this process's own changes apart, since it has applied them already.
+    private final String origin = UUID.randomUUID().toString();
+
+    public CatalogChangeLog(JdbcTemplate jdbcTemplate, CatalogVersion catalogVersion) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.catalogVersion = catalogVersion;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(ChangedEntity entity, Long id) {
+        pending().add(new Change(entity, List.of(id), null));
+    }
+
+    /**
+     * Records a catalog change and, once the transaction commits, runs {@code apply} to
+     * bring this node's indexes in line and then advances the catalog version. Nothing
+     * runs on rollback, so the indexes never show a change that did not happen.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(ChangedEntity entity, Long id, Runnable apply) {
+        pending().add(new Change(entity, List.of(id), apply));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(ChangedEntity entity, Collection<Long> ids, Runnable apply) {
+        if (!ids.isEmpty()) {
+            pending().add(new Change(entity, ids, apply));
+        }
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    // Synchronizations are suspended along with their transaction, so an inner one gets its own.
+    private PendingChanges pending() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingChanges pending && pending.owner() == this) {
+                return pending;
+            }
+        }
+        PendingChanges pending = new PendingChanges();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private CatalogVersion.Stamp insert(Change change) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT);
+            statement.setString(1, change.entity().name());
+            statement.setArray(2, connection.createArrayOf("bigint", change.ids().toArray()));
+            statement.setString(3, origin);
+            return statement;
+        }, STAMP).get(0);
+    }
+
+    private record Change(ChangedEntity entity, Collection<Long> ids, Runnable apply) {
+    }
+
+    /**
+     * The changes of one transaction, written before it commits and applied after.
+     */
+    private final class PendingChanges implements TransactionSynchronization {
+        private final List<Change> changes = new ArrayList<>();
+        private final List<CatalogVersion.Stamp> stamps = new ArrayList<>();
+
+        private CatalogChangeLog owner() {
+            return CatalogChangeLog.this;
+        }
+
+        private void add(Change change) {
+            changes.add(change);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            jdbcTemplate.execute(LOCK);
+            for (Change change : changes) {
+                stamps.add(insert(change));
+            }
+        }
+
+        @Override
+        public void afterCommit() {
+            for (int i = 0; i < changes.size(); i++) {
+                Change change = changes.get(i);
+                if (change.apply() != null) {
+                    change.apply().run();
+                    catalogVersion.advance(stamps.get(i).version(), stamps.get(i).modifiedAt());
+                }
+            }
+        }
+    }
+}
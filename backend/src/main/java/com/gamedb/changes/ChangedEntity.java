@@ -0,0 +1,11 @@
+package com.gamedb.changes;
+
+/**
+ * What a {@code catalog_changes} row refers to; its {@code entity_id} is the id in the
+ * matching table.
+ */
+public enum ChangedEntity {
+    GAME,
+    TAG,
+    USER
+}
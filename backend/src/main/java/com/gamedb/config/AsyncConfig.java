@@ -0,0 +1,39 @@
+package com.gamedb.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Streaming responses, of which the catalog export is the only one, run on their own
+ * bounded pool rather than the shared application task executor, so a few long exports
+ * cannot starve {@code @Async} work. A streaming request beyond the pool is rejected
+ * with a 503.
+ */
+@Configuration
+public class AsyncConfig implements WebMvcConfigurer {
+    private final int streamingThreads;
+
+    public AsyncConfig(@Value("${gamedb.export.max-concurrent:4}") int streamingThreads) {
+        this.streamingThreads = streamingThreads;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor streamingResponseExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("streaming-response-");
+        executor.setCorePoolSize(streamingThreads);
+        executor.setMaxPoolSize(streamingThreads);
+        executor.setQueueCapacity(0);
+        return executor;
+    }
+
+    // Runs after Spring Boot's own configurer, which would otherwise hand out the application task executor.
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(streamingResponseExecutor());
+    }
+}
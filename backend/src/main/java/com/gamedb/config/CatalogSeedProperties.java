@@ -0,0 +1,26 @@
+package com.gamedb.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Size and shape of the synthetic catalog written by the {@code seed} profile. Per-user
+ * favorite counts are means; individual users vary around them.
+ */
+@Data
+@ConfigurationProperties(prefix = "gamedb.seed")
+public class CatalogSeedProperties {
+    private int games = 1_000_000;
+    private int tags = 20_000;
+    private int users = 100_000;
+    private int minTagsPerGame = 3;
+    private int maxTagsPerGame = 10;
+    private int favoriteGamesPerUser = 20;
+    private int favoriteTagsPerUser = 5;
+    // Power-law exponent for how tags and games are picked: 0 is uniform, 1 is Zipf-like.
+    private double skew = 1.0;
+    private long randomSeed = 42;
+    private String userPassword = "password";
+    // For rebuilding the indexes dropped during the load.
+    private String maintenanceWorkMem = "512MB";
+}
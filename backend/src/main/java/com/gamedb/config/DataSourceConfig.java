@@ -0,0 +1,120 @@
+package com.gamedb.config;
+
+import com.gamedb.datasource.ReadYourWritesInterceptor;
+import com.gamedb.datasource.ReplicaAwareJpaDialect;
+import com.gamedb.datasource.ReplicaRoutingDataSource;
+import com.gamedb.metrics.StatementCountingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaVendorAdapter;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The primary pool from {@code spring.datasource.*} plus one pool per replica in
+ * {@link DataSourceRoutingProperties}, behind a single routing data source that JPA,
+ * JDBC and Flyway all share. Reads from a replica do not fill Hibernate's caches.
+ */
+@Configuration
+@EnableConfigurationProperties(DataSourceRoutingProperties.class)
+public class DataSourceConfig implements WebMvcConfigurer {
+    private final DataSourceRoutingProperties routing;
+
+    public DataSourceConfig(DataSourceRoutingProperties routing) {
+        this.routing = routing;
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(HikariDataSource primaryDataSource) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < routing.getReplicas().size(); i++) {
+            replicas.add(replicaPool(primaryDataSource, routing.getReplicas().get(i), i));
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, routing.getCheckInterval(), routing.getConnectionTimeout());
+    }
+
+    // Replica pools are not beans, so Spring Boot does not instrument them the way it does the primary.
+    @Bean
+    public MeterBinder replicaPoolMetrics(ReplicaRoutingDataSource routingDataSource) {
+        return registry -> {
+            for (HikariDataSource replica : routingDataSource.getReplicaPools()) {
+                replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            }
+            Gauge.builder("datasource.replicas.up", routingDataSource, ReplicaRoutingDataSource::replicasUp).register(registry);
+        };
+    }
+
+    // Statements are counted per request here, below JPA and JdbcTemplate alike.
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(new StatementCountingDataSource(routingDataSource));
+    }
+
+    // Same settings as Spring Boot's own adapter, with a dialect that keeps replica reads out of the caches.
+    @Bean
+    public JpaVendorAdapter jpaVendorAdapter(JpaProperties properties, ReplicaRoutingDataSource routingDataSource) {
+        HibernateJpaDialect dialect = new ReplicaAwareJpaDialect(routingDataSource);
+        HibernateJpaVendorAdapter adapter = new HibernateJpaVendorAdapter() {
+            @Override
+            public HibernateJpaDialect getJpaDialect() {
+                return dialect;
+            }
+        };
+        adapter.setShowSql(properties.isShowSql());
+        if (properties.getDatabase() != null) {
+            adapter.setDatabase(properties.getDatabase());
+        }
+        if (properties.getDatabasePlatform() != null) {
+            adapter.setDatabasePlatform(properties.getDatabasePlatform());
+        }
+        adapter.setGenerateDdl(properties.isGenerateDdl());
+        return adapter;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ReadYourWritesInterceptor(routing.getReadYourWritesWindow()));
+    }
+
+    // Same pool settings as the primary, but a replica that is down must fail fast and not stop startup.
+    private HikariDataSource replicaPool(HikariDataSource primary, DataSourceRoutingProperties.Replica replica, int index) {
+        HikariConfig config = new HikariConfig();
+        primary.copyStateTo(config);
+        config.setPoolName("replica-" + index);
+        config.setJdbcUrl(replica.getUrl());
+        if (replica.getUsername() != null) {
+            config.setUsername(replica.getUsername());
+            config.setPassword(replica.getPassword());
+        }
+        config.setReadOnly(true);
+        config.setConnectionTimeout(routing.getConnectionTimeout().toMillis());
+        config.setInitializationFailTimeout(-1);
+        return new HikariDataSource(config);
+    }
+}
@@ -0,0 +1,31 @@
+package com.gamedb.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas used for read-only transactions. With no replicas listed every
+ * connection comes from the primary ({@code spring.datasource.*}).
+ */
+@Data
+@ConfigurationProperties(prefix = "gamedb.datasource")
+public class DataSourceRoutingProperties {
+    private List<Replica> replicas = new ArrayList<>();
+    // How often replicas are probed, and how long a probe or a borrow may wait.
+    private Duration checkInterval = Duration.ofSeconds(5);
+    private Duration connectionTimeout = Duration.ofSeconds(1);
+    // How long a user's reads stay on the primary after they wrote something.
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+    @Data
+    public static class Replica {
+        private String url;
+        // Default to the primary's credentials when not set.
+        private String username;
+        private String password;
+    }
+}
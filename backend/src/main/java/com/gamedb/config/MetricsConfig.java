@@ -0,0 +1,75 @@
+package com.gamedb.config;
+
+import com.gamedb.metrics.HibernateRequestStatistics;
+import com.gamedb.metrics.RequestStatisticsInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsContributor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+
+/**
+ * Request metrics beyond what Spring Boot records: latency tagged with the handling
+ * controller method, and SQL statements, entity loads and collection fetches per
+ * request, with the statements checked against each handler's query budget. Percentiles are configured
+ * under {@code management.metrics.distribution}.
+ */
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+    private final HibernateRequestStatistics hibernateStatistics = new HibernateRequestStatistics();
+    private final RequestStatisticsInterceptor requestStatisticsInterceptor;
+
+    public MetricsConfig(MeterRegistry meterRegistry,
+                         @Value("${gamedb.query-budget.default:20}") int defaultQueryBudget,
+                         @Value("${gamedb.query-budget.enforce:false}") boolean enforceQueryBudget) {
+        this.requestStatisticsInterceptor = new RequestStatisticsInterceptor(meterRegistry, defaultQueryBudget,
+                enforceQueryBudget);
+    }
+
+    @Bean
+    public WebMvcTagsContributor handlerTagContributor() {
+        return new WebMvcTagsContributor() {
+            @Override
+            public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                         Throwable exception) {
+                return Tags.of("handler", RequestStatisticsInterceptor.handlerName(handler));
+            }
+
+            @Override
+            public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+                return Tags.empty();
+            }
+        };
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer requestStatisticsCustomizer() {
+        return properties -> {
+            properties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+                    (IntegratorProvider) () -> List.of(hibernateStatistics));
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(requestStatisticsInterceptor);
+    }
+
+    // Streaming responses run on another thread, which counts towards the same request.
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(requestStatisticsInterceptor);
+    }
+}
@@ -0,0 +1,21 @@
+package com.gamedb.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * How favorites and views turn into trending scores. Changing the half-life only
+ * affects the rank of games as their rows are next written.
+ */
+@Data
+@ConfigurationProperties(prefix = "gamedb.popularity")
+public class PopularityProperties {
+    private Duration flushInterval = Duration.ofSeconds(10);
+    private Duration halfLife = Duration.ofHours(24);
+    private double viewWeight = 1;
+    // Applied negatively when a game is unfavorited.
+    private double favoriteWeight = 10;
+    private int trendingSize = 100;
+}
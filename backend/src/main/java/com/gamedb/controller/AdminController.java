@@ -1,16 +1,27 @@
 package com.gamedb.controller;
 
 import com.gamedb.Entity.Game;
-import com.gamedb.Entity.Role;
 import com.gamedb.Entity.Tag;
 import com.gamedb.Entity.User;
-import com.gamedb.repository.UserRepository;
+import com.gamedb.dto.BulkIngestResult;
+import com.gamedb.metrics.QueryBudget;
+import com.gamedb.security.PrincipalCache;
+import com.gamedb.service.AuthService;
+import com.gamedb.service.BulkGameIngestService;
+import com.gamedb.service.CatalogExportService;
 import com.gamedb.service.GameService;
 import com.gamedb.service.TagService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 
 @RestController
@@ -18,59 +29,78 @@ import java.util.List;
 public class AdminController {
     private final GameService gameService;
     private final TagService tagService;
-    private final UserRepository userRepository;
+    private final AuthService authService;
+    private final PrincipalCache principalCache;
+    private final CatalogExportService catalogExportService;
+    private final BulkGameIngestService bulkGameIngestService;
+    private final AsyncRequestTimeout exportTimeout;
 
-    public AdminController(GameService gameService, TagService tagService, UserRepository userRepository) {
+    public AdminController(GameService gameService, TagService tagService, AuthService authService, PrincipalCache principalCache,
+                           CatalogExportService catalogExportService, BulkGameIngestService bulkGameIngestService,
+                           @Value("${gamedb.export.request-timeout:1h}") Duration exportTimeout) {
         this.gameService = gameService;
         this.tagService = tagService;
-        this.userRepository = userRepository;
+        this.authService = authService;
+        this.principalCache = principalCache;
+        this.catalogExportService = catalogExportService;
+        this.bulkGameIngestService = bulkGameIngestService;
+        this.exportTimeout = new AsyncRequestTimeout(exportTimeout);
     }
 
     @PostMapping("/games")
     @PreAuthorize("hasRole('ADMIN')")
+    @QueryBudget(6)
     public Game createGame(@RequestBody Game game) {
         return gameService.save(game);
     }
 
+    @PostMapping(value = "/games/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+    @PreAuthorize("hasRole('ADMIN')")
+    // Each chunk extends the budget by what it may run.
+    @QueryBudget(0)
+    public BulkIngestResult bulkCreateGames(HttpServletRequest request) throws IOException {
+        return bulkGameIngestService.ingest(request.getInputStream());
+    }
+
+    @GetMapping(value = "/games/export", produces = "application/x-ndjson")
+    @PreAuthorize("hasRole('ADMIN')")
+    @QueryBudget(1)
+    public ResponseEntity<StreamingResponseBody> exportGames(@RequestParam(defaultValue = "0") long after,
+                                                             HttpServletRequest request) {
+        // A whole catalog takes far longer than spring.mvc.async.request-timeout allows other async requests.
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(AsyncRequestTimeout.class, exportTimeout);
+        StreamingResponseBody body = out -> catalogExportService.export(after, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
     @PutMapping("/games/{id}")
     @PreAuthorize("hasRole('ADMIN')")
+    @QueryBudget(10)
     public ResponseEntity<Game> updateGame(@PathVariable Long id, @RequestBody Game game) {
-        return gameService.findById(id)
-                .map(existingGame -> {
-                    existingGame.setTitle(game.getTitle());
-                    existingGame.setDescription(game.getDescription());
-                    existingGame.setStory(game.getStory());
-                    existingGame.setReleaseDate(game.getReleaseDate());
-                    existingGame.setPrice(game.getPrice());
-                    existingGame.setImageUrl(game.getImageUrl());
-                    existingGame.setVideoUrl(game.getVideoUrl());
-                    existingGame.setSteamLink(game.getSteamLink());
-                    existingGame.setAdditionalImageUrls(game.getAdditionalImageUrls());
-                    existingGame.setAdditionalVideoUrls(game.getAdditionalVideoUrls());
-                    existingGame.getTags().clear();
-                    for (Tag tag : game.getTags()) {
-                        Tag managedTag = tagService.findById(tag.getId()).orElseThrow(() -> new RuntimeException("Tag not found"));
-                        existingGame.getTags().add(managedTag);
-                    }
-                    return ResponseEntity.ok(gameService.save(existingGame));
-                })
+        return gameService.update(id, game)
+                .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping("/tags")
     @PreAuthorize("hasRole('ADMIN')")
+    @QueryBudget(4)
     public Tag createTag(@RequestBody Tag tag) {
         return tagService.save(tag);
     }
 
     @GetMapping("/tags")
     @PreAuthorize("hasRole('ADMIN')")
+    @QueryBudget(0)
     public List<Tag> getAllTags() {
         return tagService.findAll();
     }
 
     @DeleteMapping("/tags/{id}")
     @PreAuthorize("hasRole('ADMIN')")
+    @QueryBudget(4)
     public ResponseEntity<Void> deleteTag(@PathVariable Long id) {
         tagService.deleteById(id);
         return ResponseEntity.ok().build();
@@ -78,32 +108,34 @@ public class AdminController {
 
     @PostMapping("/games/{gameId}/tags/{tagId}")
     @PreAuthorize("hasRole('ADMIN')")
+    @QueryBudget(7)
     public Game addTagToGame(@PathVariable Long gameId, @PathVariable Long tagId) {
         return gameService.addTag(gameId, tagId);
     }
 
     @DeleteMapping("/games/{gameId}/tags/{tagId}")
     @PreAuthorize("hasRole('ADMIN')")
+    @QueryBudget(7)
     public Game removeTagFromGame(@PathVariable Long gameId, @PathVariable Long tagId) {
         return gameService.removeTag(gameId, tagId);
     }
 
     @GetMapping("/tags/search")
     @PreAuthorize("hasRole('ADMIN')")
-    public List<Tag> searchTags(@RequestParam String prefix) {
-        return tagService.findByNameStartingWith(prefix);
+    @QueryBudget(0)
+    public List<Tag> searchTags(@RequestParam String prefix, @RequestParam(defaultValue = "10") int limit) {
+        return tagService.findByNameStartingWith(prefix, limit);
     }
 
     @PutMapping("/users/{username}/role")
     @PreAuthorize("hasRole('ADMIN')")
+    @QueryBudget(4)
     public ResponseEntity<String> promoteToAdmin(@PathVariable String username) {
-        return userRepository.findByUsername(username)
-                .map(user -> {
-                    user.setRole(Role.ADMIN);
-                    userRepository.save(user);
-                    return ResponseEntity.ok("User promoted to admin");
-                })
-                .orElse(ResponseEntity.status(404).body("User not found"));
+        if (!authService.promoteToAdmin(username)) {
+            return ResponseEntity.status(404).body("User not found");
+        }
+        principalCache.invalidateUser(username);
+        return ResponseEntity.ok("User promoted to admin");
     }
 
 
@@ -0,0 +1,29 @@
+package com.gamedb.controller;
+
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * Gives one async request its own timeout in place of {@code spring.mvc.async.request-timeout},
+ * for handlers that return a {@code StreamingResponseBody} and so cannot pass one in a
+ * {@code WebAsyncTask}. Register it on the request's {@code WebAsyncManager} before returning.
+ */
+final class AsyncRequestTimeout implements CallableProcessingInterceptor {
+    private final long timeoutMillis;
+
+    AsyncRequestTimeout(Duration timeout) {
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    // Runs before the async request starts, which is when the servlet container takes the timeout.
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+        if (request instanceof AsyncWebRequest) {
+            ((AsyncWebRequest) request).setTimeout(timeoutMillis);
+        }
+    }
+}
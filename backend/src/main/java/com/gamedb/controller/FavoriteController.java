@@ -1,9 +1,15 @@
 package com.gamedb.controller;
 
-import com.gamedb.Entity.Game;
+import com.gamedb.dto.FavoriteChanges;
+import com.gamedb.dto.FavoriteIds;
+import com.gamedb.dto.GameSummaryDTO;
+import com.gamedb.metrics.QueryBudget;
+import com.gamedb.security.AuthenticatedUser;
 import com.gamedb.service.FavoriteService;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -18,24 +24,36 @@ public class FavoriteController {
     }
 
     @PostMapping("/game/{gameId}")
-    public ResponseEntity<String> toggleFavoriteGame(@PathVariable Long gameId, Authentication auth) {
-        boolean added = favoriteService.toggleFavoriteGame(auth.getName(), gameId);
+    @QueryBudget(1)
+    public ResponseEntity<String> toggleFavoriteGame(@PathVariable Long gameId, @AuthenticationPrincipal AuthenticatedUser user) {
+        boolean added = favoriteService.toggleFavoriteGame(user.getId(), gameId);
         return ResponseEntity.ok(added ? "Game added to favorites" : "Game removed from favorites");
     }
 
     @PostMapping("/tag/{tagId}")
-    public ResponseEntity<String> toggleFavoriteTag(@PathVariable Long tagId, Authentication auth) {
-        boolean added = favoriteService.toggleFavoriteTag(auth.getName(), tagId);
+    @QueryBudget(1)
+    public ResponseEntity<String> toggleFavoriteTag(@PathVariable Long tagId, @AuthenticationPrincipal AuthenticatedUser user) {
+        boolean added = favoriteService.toggleFavoriteTag(user.getId(), tagId);
         return ResponseEntity.ok(added ? "Tag added to favorites" : "Tag removed from favorites");
     }
 
+    @PostMapping("/batch")
+    @QueryBudget(6)
+    public FavoriteIds applyFavoriteChanges(@RequestBody FavoriteChanges changes, @AuthenticationPrincipal AuthenticatedUser user) {
+        return favoriteService.applyChanges(user.getId(), changes);
+    }
+
     @GetMapping("/games")
-    public List<Game> getFavoriteGames(Authentication auth) {
-        return favoriteService.getFavoriteGames(auth.getName());
+    @QueryBudget(2)
+    public List<GameSummaryDTO> getFavoriteGames(@AuthenticationPrincipal AuthenticatedUser user) {
+        return favoriteService.getFavoriteGames(user.getId());
     }
 
     @GetMapping("/recommendations")
-    public List<Game> getRecommendedGames(Authentication auth) {
-        return favoriteService.getRecommendedGames(auth.getName());
+    @QueryBudget(3)
+    public Page<GameSummaryDTO> getRecommendedGames(@AuthenticationPrincipal AuthenticatedUser user,
+                                                    @RequestParam(defaultValue = "0") int page,
+                                                    @RequestParam(defaultValue = "10") int size) {
+        return favoriteService.getRecommendedGames(user.getId(), PageRequest.of(page, size));
     }
 }
\ No newline at end of file
@@ -2,69 +2,190 @@ package com.gamedb.controller;
 
 import com.gamedb.Entity.Game;
 import com.gamedb.Entity.Tag;
-
+import com.gamedb.dto.Cursor;
+import com.gamedb.dto.CursorSlice;
+import com.gamedb.dto.GameSummaryDTO;
+import com.gamedb.index.TagFilter;
+import com.gamedb.metrics.QueryBudget;
+import com.gamedb.service.CatalogVersion;
 import com.gamedb.service.GameService;
+import com.gamedb.service.PopularityService;
 import com.gamedb.service.TagService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/games")
 public class GameController {
+    private static final int MAX_FACETS = 100;
+    private static final int MAX_SIMILAR = 50;
+    private static final int MAX_TRENDING = 100;
+
     private final GameService gameService;
     private final TagService tagService;
+    private final CatalogVersion catalogVersion;
+    private final PopularityService popularityService;
 
-    public GameController(GameService gameService, TagService tagService) {
+    public GameController(GameService gameService, TagService tagService, CatalogVersion catalogVersion,
+                          PopularityService popularityService) {
         this.gameService = gameService;
         this.tagService = tagService;
+        this.catalogVersion = catalogVersion;
+        this.popularityService = popularityService;
     }
     @GetMapping
-    public Page<Game> getAllGames(@RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "30") int size) {
-        return gameService.listAll(PageRequest.of(page, size));
+    @QueryBudget(3)
+    public ResponseEntity<Page<GameSummaryDTO>> getAllGames(@RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "30") int size,
+                                                            WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(gameService.listAll(PageRequest.of(page, size)));
     }
 
     @GetMapping("/search")
-    public Page<Game> searchGames(@RequestParam(required = false) String title,
-                                  @RequestParam(required = false) Long tagId,
-                                  @RequestParam(defaultValue = "0") int page,
-                                  @RequestParam(defaultValue = "10") int size) {
-        return gameService.search(title, tagId, PageRequest.of(page, size));
+    @QueryBudget(2)
+    public ResponseEntity<Page<GameSummaryDTO>> searchGames(@RequestParam(required = false) String title,
+                                                            @RequestParam(required = false) Long tagId,
+                                                            @RequestParam(required = false) List<String> tags,
+                                                            @RequestParam(required = false) List<String> anyTags,
+                                                            @RequestParam(required = false) List<String> exclude,
+                                                            @RequestParam(defaultValue = "0") int page,
+                                                            @RequestParam(defaultValue = "10") int size,
+                                                            @RequestParam(defaultValue = "0") int facets,
+                                                            WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
+        TagFilter filter = tagFilter(tagId, tags, anyTags, exclude);
+        Page<GameSummaryDTO> games = facets > 0
+                ? gameService.search(title, filter, PageRequest.of(page, size), Math.min(facets, MAX_FACETS))
+                : gameService.search(title, filter, PageRequest.of(page, size));
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(games);
+    }
+
+    @GetMapping("/scroll")
+    @QueryBudget(2)
+    public CursorSlice<GameSummaryDTO> scrollGames(@RequestParam(required = false) String after,
+                                                   @RequestParam(defaultValue = "30") int size,
+                                                   @RequestParam(defaultValue = "false") boolean withTotal) {
+        return gameService.scroll(null, new TagFilter(null, null, null), decodeCursor(after), size, withTotal);
+    }
+
+    @GetMapping("/search/scroll")
+    @QueryBudget(2)
+    public CursorSlice<GameSummaryDTO> scrollSearch(@RequestParam(required = false) String title,
+                                                    @RequestParam(required = false) Long tagId,
+                                                    @RequestParam(required = false) List<String> tags,
+                                                    @RequestParam(required = false) List<String> anyTags,
+                                                    @RequestParam(required = false) List<String> exclude,
+                                                    @RequestParam(required = false) String after,
+                                                    @RequestParam(defaultValue = "10") int size,
+                                                    @RequestParam(defaultValue = "false") boolean withTotal) {
+        return gameService.scroll(title, tagFilter(tagId, tags, anyTags, exclude), decodeCursor(after), size, withTotal);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Game> getGameById(@PathVariable Long id) {
+    @QueryBudget(4)
+    public ResponseEntity<Game> getGameById(@PathVariable Long id, WebRequest request) {
+        // A revalidated view is still a view, so it counts before the 304 check.
+        if (gameService.exists(id)) {
+            popularityService.recordView(id);
+        }
+        if (notModified(request)) {
+            return null;
+        }
         return gameService.findById(id)
-                .map(ResponseEntity::ok)
+                .map(game -> ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(game))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/trending")
+    @QueryBudget(2)
+    public List<GameSummaryDTO> getTrendingGames(@RequestParam(defaultValue = "10") int limit) {
+        return popularityService.getTrending(Math.min(limit, MAX_TRENDING));
+    }
+
+    @GetMapping("/{id}/similar")
+    @QueryBudget(2)
+    public ResponseEntity<List<GameSummaryDTO>> getSimilarGames(@PathVariable Long id,
+                                                                @RequestParam(defaultValue = "10") int limit,
+                                                                WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
+        return gameService.findSimilar(id, Math.min(limit, MAX_SIMILAR))
+                .map(games -> ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(games))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/tags")
     @PreAuthorize("isAuthenticated()")
+    @QueryBudget(0)
     public List<Tag> getAllTags() {
         return tagService.findAll();
     }
 
     @GetMapping("/tags/search")
-    public List<Tag> searchTags(@RequestParam String prefix) {
-        return tagService.findByNameStartingWith(prefix);
+    @QueryBudget(0)
+    public List<Tag> searchTags(@RequestParam String prefix, @RequestParam(defaultValue = "10") int limit) {
+        return tagService.findByNameStartingWith(prefix, limit);
     }
 
     @PostMapping("/{gameId}/tags/{tagId}")
     @PreAuthorize("isAuthenticated()")
+    @QueryBudget(7)
     public Game addTagToGame(@PathVariable Long gameId, @PathVariable Long tagId) {
         return gameService.addTag(gameId, tagId);
     }
 
     @DeleteMapping("/{gameId}/tags/{tagId}")
     @PreAuthorize("isAuthenticated()")
+    @QueryBudget(7)
     public Game removeTagFromGame(@PathVariable Long gameId, @PathVariable Long tagId) {
         return gameService.removeTag(gameId, tagId);
     }
 
+    /**
+     * Tags the response with the current catalog version and tells whether the client
+     * already holds it, in which case a 304 has been set up and nothing else is needed.
+     * Called before the body is built, so a racing write can only make the ETag older
+     * than the body.
+     */
+    private boolean notModified(WebRequest request) {
+        CatalogVersion.Stamp stamp = catalogVersion.current();
+        return request.checkNotModified(catalogVersion.etag(stamp), stamp.modifiedAt().toEpochMilli());
+    }
 
+    private static TagFilter tagFilter(Long tagId, List<String> tags, List<String> anyTags, List<String> exclude) {
+        List<String> allOf = new ArrayList<>();
+        if (tags != null) {
+            allOf.addAll(tags);
+        }
+        if (tagId != null) {
+            allOf.add(tagId.toString());
+        }
+        return new TagFilter(allOf, anyTags, exclude);
+    }
+
+    private static Cursor decodeCursor(String after) {
+        if (after == null || after.isBlank()) {
+            return null;
+        }
+        try {
+            return Cursor.decode(after);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+    }
 }
@@ -0,0 +1,57 @@
+package com.gamedb.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Keeps requests that may write on the primary, along with every request of a user
+ * who wrote within the last {@code window}, so a favorite toggled a moment ago is
+ * never read back from a replica that has not caught up yet.
+ */
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesInterceptor(Duration window) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Principal user = request.getUserPrincipal();
+        if (!SAFE_METHODS.contains(request.getMethod())) {
+            ReplicaRoutingDataSource.usePrimary();
+            if (user != null) {
+                recentWriters.put(user.getName(), Boolean.TRUE);
+            }
+        } else if (user != null && recentWriters.getIfPresent(user.getName()) != null) {
+            ReplicaRoutingDataSource.usePrimary();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Principal user = request.getUserPrincipal();
+        if (user != null && !SAFE_METHODS.contains(request.getMethod())) {
+            // Counted from the end of the write, which is when it committed.
+            recentWriters.put(user.getName(), Boolean.TRUE);
+        }
+        ReplicaRoutingDataSource.clear();
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ReplicaRoutingDataSource.clear();
+    }
+}
@@ -0,0 +1,53 @@
+package com.gamedb.datasource;
+
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+
+import javax.persistence.CacheStoreMode;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import java.sql.SQLException;
+
+/**
+ * Keeps read-only transactions that {@link ReplicaRoutingDataSource} sends to a replica
+ * from filling the second-level and query caches: a replica that lags behind would put
+ * back rows a write on the primary has just evicted, and they would stay stale until
+ * the next write. Such sessions still read from the caches, and the session's previous
+ * store mode is restored when the transaction ends, since one session can span several
+ * transactions of a request. The store mode is set as a JPA property rather than a
+ * Hibernate cache mode, which {@code EntityManager.find} would reset from the properties.
+ */
+public class ReplicaAwareJpaDialect extends HibernateJpaDialect {
+    private static final String STORE_MODE = "javax.persistence.cache.storeMode";
+
+    private final ReplicaRoutingDataSource routingDataSource;
+
+    public ReplicaAwareJpaDialect(ReplicaRoutingDataSource routingDataSource) {
+        this.routingDataSource = routingDataSource;
+    }
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException {
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        if (!definition.isReadOnly() || !routingDataSource.routesToReplica()) {
+            return transactionData;
+        }
+        Object storeMode = entityManager.getProperties().getOrDefault(STORE_MODE, CacheStoreMode.USE);
+        entityManager.setProperty(STORE_MODE, CacheStoreMode.BYPASS);
+        return new ReplicaTransactionData(transactionData, entityManager, storeMode);
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (transactionData instanceof ReplicaTransactionData replicaData) {
+            replicaData.entityManager.setProperty(STORE_MODE, replicaData.previousStoreMode);
+            super.cleanupTransaction(replicaData.transactionData);
+        } else {
+            super.cleanupTransaction(transactionData);
+        }
+    }
+
+    private record ReplicaTransactionData(Object transactionData, EntityManager entityManager, Object previousStoreMode) {
+    }
+}
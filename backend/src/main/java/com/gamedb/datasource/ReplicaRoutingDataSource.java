@@ -0,0 +1,166 @@
+package com.gamedb.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out replica connections to read-only transactions and primary connections to
+ * everything else. Replicas are taken round-robin; one that fails to hand out a
+ * connection is skipped until the background check finds it healthy again, and when
+ * none is up reads fall back to the primary.
+ *
+ * <p>The routing decision is made when a connection is first used, so this must sit
+ * behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}:
+ * the read-only flag of a transaction is only set after it has asked for a connection.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService healthCheck;
+    private final int checkTimeoutSeconds;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicaPools,
+                                    Duration checkInterval, Duration checkTimeout) {
+        this.primary = primary;
+        for (HikariDataSource pool : replicaPools) {
+            replicas.add(new Replica(pool));
+        }
+        this.checkTimeoutSeconds = (int) Math.max(1, checkTimeout.toSeconds());
+        if (replicas.isEmpty()) {
+            this.healthCheck = null;
+            return;
+        }
+        this.healthCheck = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthCheck.scheduleWithFixedDelay(this::checkReplicas, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Keeps every connection taken on this thread on the primary until {@link #clear()},
+     * for requests that write or must see their own earlier writes.
+     */
+    public static void usePrimary() {
+        PRIMARY_ONLY.set(Boolean.TRUE);
+    }
+
+    public static void clear() {
+        PRIMARY_ONLY.remove();
+    }
+
+    /**
+     * Whether a read-only transaction started on this thread now would read from a
+     * replica, as long as one is up.
+     */
+    public boolean routesToReplica() {
+        return !replicas.isEmpty() && PRIMARY_ONLY.get() == null;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (replicas.isEmpty() || PRIMARY_ONLY.get() != null
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return primary.getConnection();
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (!replica.up) {
+                continue;
+            }
+            try {
+                return replica.pool.getConnection();
+            } catch (SQLException ex) {
+                markDown(replica, ex);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    public List<HikariDataSource> getReplicaPools() {
+        List<HikariDataSource> pools = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            pools.add(replica.pool);
+        }
+        return pools;
+    }
+
+    public int replicasUp() {
+        int up = 0;
+        for (Replica replica : replicas) {
+            if (replica.up) {
+                up++;
+            }
+        }
+        return up;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Connections use the credentials of each pool");
+    }
+
+    @Override
+    public void destroy() {
+        if (healthCheck != null) {
+            healthCheck.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            replica.pool.close();
+        }
+    }
+
+    private void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.pool.getConnection()) {
+                if (!connection.isValid(checkTimeoutSeconds)) {
+                    markDown(replica, null);
+                } else if (!replica.up) {
+                    replica.up = true;
+                    log.info("Replica {} is back up", replica.pool.getPoolName());
+                }
+            } catch (SQLException ex) {
+                markDown(replica, ex);
+            }
+        }
+    }
+
+    private void markDown(Replica replica, SQLException cause) {
+        if (replica.up) {
+            replica.up = false;
+            log.warn("Replica {} is down, reading from the others until it recovers: {}", replica.pool.getPoolName(),
+                    cause == null ? "connection is not valid" : cause.getMessage());
+        }
+    }
+
+    private static final class Replica {
+        private final HikariDataSource pool;
+        private volatile boolean up = true;
+
+        private Replica(HikariDataSource pool) {
+            this.pool = pool;
+        }
+    }
+}
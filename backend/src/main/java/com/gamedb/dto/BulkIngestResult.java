@@ -0,0 +1,40 @@
+package com.gamedb.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class BulkIngestResult {
+    private int inserted;
+    private int failed;
+    private List<Chunk> chunks = new ArrayList<>();
+
+    public void add(Chunk chunk) {
+        chunks.add(chunk);
+        if (chunk.getError() == null) {
+            inserted += chunk.getRecords();
+        } else {
+            failed += chunk.getRecords();
+        }
+    }
+
+    /**
+     * Outcome of one transaction. {@code firstRecord} is the zero-based position of the
+     * chunk's first game in the request body; a failed chunk is rolled back as a whole.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Chunk {
+        private int firstRecord;
+        private int records;
+        private Long firstId;
+        private Long lastId;
+        private String error;
+    }
+}
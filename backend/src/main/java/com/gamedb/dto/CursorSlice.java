@@ -0,0 +1,25 @@
+package com.gamedb.dto;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.List;
+
+public class CursorSlice<T> extends SliceImpl<T> {
+    private final String nextCursor;
+    private final Long totalElements;
+
+    public CursorSlice(List<T> content, int size, boolean hasNext, Cursor nextCursor, Long totalElements) {
+        super(content, PageRequest.of(0, size), hasNext);
+        this.nextCursor = hasNext && nextCursor != null ? nextCursor.encode() : null;
+        this.totalElements = totalElements;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public Long getTotalElements() {
+        return totalElements;
+    }
+}
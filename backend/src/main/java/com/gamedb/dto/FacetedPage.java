@@ -0,0 +1,23 @@
+package com.gamedb.dto;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * A page of search results with the most common tags among all the results, not just
+ * this page, and how many results carry each.
+ */
+public class FacetedPage<T> extends PageImpl<T> {
+    private final List<TagFacet> facets;
+
+    public FacetedPage(List<T> content, Pageable pageable, long total, List<TagFacet> facets) {
+        super(content, pageable, total);
+        this.facets = facets;
+    }
+
+    public List<TagFacet> getFacets() {
+        return facets;
+    }
+}
@@ -0,0 +1,21 @@
+package com.gamedb.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Favorites to set and clear in one request. An id listed both ways ends up cleared.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FavoriteChanges {
+    private List<Long> favoriteGames = new ArrayList<>();
+    private List<Long> unfavoriteGames = new ArrayList<>();
+    private List<Long> favoriteTags = new ArrayList<>();
+    private List<Long> unfavoriteTags = new ArrayList<>();
+}
@@ -0,0 +1,15 @@
+package com.gamedb.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FavoriteIds {
+    private List<Long> gameIds;
+    private List<Long> tagIds;
+}
@@ -0,0 +1,38 @@
+package com.gamedb.dto;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * The columns a game grid shows. Lists and searches return these instead of
+ * {@link GameDTO}, leaving out the text columns and media collections.
+ */
+@Data
+@NoArgsConstructor
+@JsonFilter(GameSummaryDTO.FIELDS_FILTER)
+public class GameSummaryDTO {
+    public static final String FIELDS_FILTER = "gameFields";
+
+    private Long id;
+    private String title;
+    private LocalDate releaseDate;
+    private BigDecimal price;
+    private String imageUrl;
+    private String steamLink;
+    private Set<TagDTO> tags;
+
+    // Selected directly by JPQL; tags are filled in afterwards.
+    public GameSummaryDTO(Long id, String title, LocalDate releaseDate, BigDecimal price, String imageUrl, String steamLink) {
+        this.id = id;
+        this.title = title;
+        this.releaseDate = releaseDate;
+        this.price = price;
+        this.imageUrl = imageUrl;
+        this.steamLink = steamLink;
+    }
+}
@@ -0,0 +1,12 @@
+package com.gamedb.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class TagFacet {
+    private Long id;
+    private String name;
+    private int count;
+}
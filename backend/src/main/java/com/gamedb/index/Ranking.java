@@ -0,0 +1,6 @@
+package com.gamedb.index;
+
+import java.util.List;
+
+public record Ranking(List<Long> ids, int total) {
+}
@@ -0,0 +1,301 @@
+package com.gamedb.index;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * MinHash signatures of each game's tag set, split into bands and hashed into
+ * locality-sensitive buckets: two games share a bucket when a whole band of their
+ * signatures agrees, which happens with probability {@code 1 - (1 - J^ROWS)^BANDS} for
+ * tag sets of Jaccard similarity {@code J}. Candidates from a game's buckets are then
+ * ranked by their exact Jaccard similarity, read from the {@link TagIndex}.
+ * <p>
+ * Signatures are not kept; only each game's bucket key per band is, and buckets are
+ * chained through arrays indexed by game id, so a million games cost a few int arrays
+ * rather than a map entry per game and band.
+ */
+@Component
+public class SimilarityIndex {
+    private static final int BANDS = 4;
+    private static final int ROWS = 2;
+    // Caps the exact comparisons per lookup; buckets of very common tag pairs can be large.
+    private static final int MAX_CANDIDATES = 2_000;
+    private static final long HASH_SEED = 0x5DEECE66DL;
+
+    private final TagIndex tagIndex;
+    private final long[] salts;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Band[] bands = new Band[BANDS];
+
+    public SimilarityIndex(TagIndex tagIndex) {
+        this.tagIndex = tagIndex;
+        this.salts = new SplittableRandom(HASH_SEED).longs(BANDS * ROWS).toArray();
+        for (int band = 0; band < BANDS; band++) {
+            bands[band] = new Band();
+        }
+    }
+
+    /**
+     * Rehashes every game from the tag index once it has loaded. Updates that race
+     * with the rebuild wait for it and are applied on top, so none are lost.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            for (int band = 0; band < BANDS; band++) {
+                bands[band] = new Band();
+            }
+            tagIndex.forEachGame(this::insert);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rehashes a game after its tags changed; {@code tagIds} is its whole new tag set.
+     */
+    public void update(Long gameId, long[] tagIds) {
+        lock.writeLock().lock();
+        try {
+            int id = TagIndex.toInt(gameId);
+            for (Band band : bands) {
+                band.remove(id);
+            }
+            insert(gameId, tagIds);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code limit} games sharing a bucket with {@code gameId}, most similar first,
+     * then by id. Games with no tags in common are never returned.
+     */
+    public List<Long> similar(Long gameId, int limit) {
+        long[] tags = tagIndex.tagsOf(gameId);
+        if (tags.length == 0 || limit <= 0) {
+            return List.of();
+        }
+        int id = TagIndex.toInt(gameId);
+        int[] candidates = new int[MAX_CANDIDATES];
+        int found = 0;
+        lock.readLock().lock();
+        try {
+            for (int band = 0; band < BANDS && found < MAX_CANDIDATES; band++) {
+                found = bands[band].collect(bandKey(tags, band), id, candidates, found);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Comparator<Scored> worstFirst = Comparator.comparingDouble(Scored::similarity)
+                .thenComparing(Comparator.comparingInt(Scored::gameId).reversed());
+        PriorityQueue<Scored> best = new PriorityQueue<>(limit, worstFirst);
+        Arrays.sort(candidates, 0, found);
+        for (int i = 0; i < found; i++) {
+            if (i > 0 && candidates[i] == candidates[i - 1]) {
+                continue;
+            }
+            double similarity = jaccard(tags, tagIndex.tagsOf((long) candidates[i]));
+            if (similarity == 0) {
+                continue;
+            }
+            Scored scored = new Scored(candidates[i], similarity);
+            if (best.size() < limit) {
+                best.add(scored);
+            } else if (worstFirst.compare(scored, best.peek()) > 0) {
+                best.poll();
+                best.add(scored);
+            }
+        }
+
+        List<Scored> ranked = new ArrayList<>(best);
+        ranked.sort(worstFirst.reversed());
+        List<Long> ids = new ArrayList<>(ranked.size());
+        for (Scored scored : ranked) {
+            ids.add((long) scored.gameId());
+        }
+        return ids;
+    }
+
+    private void insert(Long gameId, long[] tagIds) {
+        if (tagIds.length == 0) {
+            return;
+        }
+        int id = TagIndex.toInt(gameId);
+        for (int band = 0; band < BANDS; band++) {
+            bands[band].add(bandKey(tagIds, band), id);
+        }
+    }
+
+    private int bandKey(long[] tagIds, int band) {
+        long key = band;
+        for (int row = 0; row < ROWS; row++) {
+            long salt = salts[band * ROWS + row];
+            long min = Long.MAX_VALUE;
+            for (long tagId : tagIds) {
+                min = Math.min(min, mix(tagId ^ salt));
+            }
+            key = mix(key * 31 + min);
+        }
+        return (int) (key ^ (key >>> 32));
+    }
+
+    // SplitMix64's finalizer; spreads consecutive tag ids over the whole long range.
+    private static long mix(long value) {
+        long z = value * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // Both arrays are sorted, as the tag index keeps them.
+    private static double jaccard(long[] a, long[] b) {
+        int shared = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        int union = a.length + b.length - shared;
+        return union == 0 ? 0 : (double) shared / union;
+    }
+
+    private record Scored(int gameId, double similarity) {
+    }
+
+    /**
+     * One band's buckets: an open-addressing table from bucket key to the first game in
+     * the bucket, with the rest chained through {@code next}. {@code keyOf} remembers each
+     * game's bucket so it can be unlinked without its old tags.
+     */
+    private static final class Band {
+        private static final int NONE = -1;
+
+        private int[] keys = new int[1024];
+        private int[] heads = filled(1024);
+        private boolean[] used = new boolean[1024];
+        private int buckets;
+        private int[] next = filled(1024);
+        private int[] keyOf = new int[1024];
+        private boolean[] linked = new boolean[1024];
+
+        void add(int key, int gameId) {
+            ensureGame(gameId);
+            if ((buckets + 1) * 4 > keys.length * 3) {
+                resizeTable();
+            }
+            int slot = slot(key);
+            if (!used[slot]) {
+                used[slot] = true;
+                keys[slot] = key;
+                heads[slot] = NONE;
+                buckets++;
+            }
+            next[gameId] = heads[slot];
+            heads[slot] = gameId;
+            keyOf[gameId] = key;
+            linked[gameId] = true;
+        }
+
+        void remove(int gameId) {
+            if (gameId >= linked.length || !linked[gameId]) {
+                return;
+            }
+            int slot = slot(keyOf[gameId]);
+            if (heads[slot] == gameId) {
+                heads[slot] = next[gameId];
+            } else {
+                int previous = heads[slot];
+                while (next[previous] != gameId) {
+                    previous = next[previous];
+                }
+                next[previous] = next[gameId];
+            }
+            next[gameId] = NONE;
+            linked[gameId] = false;
+        }
+
+        /**
+         * Appends the games in {@code key}'s bucket other than {@code self} to
+         * {@code into}, up to its length, and returns the new count.
+         */
+        int collect(int key, int self, int[] into, int count) {
+            int slot = slot(key);
+            if (!used[slot]) {
+                return count;
+            }
+            for (int game = heads[slot]; game != NONE && count < into.length; game = next[game]) {
+                if (game != self) {
+                    into[count++] = game;
+                }
+            }
+            return count;
+        }
+
+        // The key's slot if present, otherwise the free slot where it would go.
+        private int slot(int key) {
+            int mask = keys.length - 1;
+            int slot = (key * 0x9E3779B9) >>> 1 & mask;
+            while (used[slot] && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void resizeTable() {
+            int[] oldKeys = keys;
+            int[] oldHeads = heads;
+            boolean[] oldUsed = used;
+            keys = new int[oldKeys.length * 2];
+            heads = filled(oldKeys.length * 2);
+            used = new boolean[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    int slot = slot(oldKeys[i]);
+                    used[slot] = true;
+                    keys[slot] = oldKeys[i];
+                    heads[slot] = oldHeads[i];
+                }
+            }
+        }
+
+        private void ensureGame(int gameId) {
+            if (gameId >= next.length) {
+                int size = Math.max(gameId + 1, next.length + (next.length >> 1));
+                int from = next.length;
+                next = Arrays.copyOf(next, size);
+                Arrays.fill(next, from, size, NONE);
+                keyOf = Arrays.copyOf(keyOf, size);
+                linked = Arrays.copyOf(linked, size);
+            }
+        }
+
+        private static int[] filled(int size) {
+            int[] array = new int[size];
+            Arrays.fill(array, NONE);
+            return array;
+        }
+    }
+}
@@ -0,0 +1,4 @@
+package com.gamedb.index;
+
+public record TagCount(long tagId, int count) {
+}
@@ -0,0 +1,122 @@
+package com.gamedb.index;
+
+import com.gamedb.Entity.Tag;
+import com.gamedb.repository.TagRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+
+/**
+ * All tags held in memory, by id, by lower-cased name and in a prefix trie for
+ * autocomplete. Tags change rarely, so every change swaps in a freshly loaded snapshot
+ * and readers never lock.
+ */
+@Component
+public class TagDictionary {
+    private final TagRepository tagRepository;
+    private final TagIndex tagIndex;
+    private volatile Snapshot snapshot = new Snapshot(List.of());
+
+    public TagDictionary(TagRepository tagRepository, TagIndex tagIndex) {
+        this.tagRepository = tagRepository;
+        this.tagIndex = tagIndex;
+    }
+
+    /**
+     * Loads a new snapshot in a transaction of its own, since writers call this once
+     * their transaction has committed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true, propagation = Propagation.REQUIRES_NEW)
+    public synchronized void refresh() {
+        List<Tag> tags = tagRepository.findAll();
+        tags.sort(Comparator.comparing(Tag::getId));
+        snapshot = new Snapshot(tags);
+    }
+
+    public List<Tag> findAll() {
+        return snapshot.tags;
+    }
+
+    public Optional<Tag> findById(Long id) {
+        return Optional.ofNullable(snapshot.byId.get(id));
+    }
+
+    public Optional<Tag> findByName(String name) {
+        return Optional.ofNullable(snapshot.byName.get(name.toLowerCase(Locale.ROOT)));
+    }
+
+    /**
+     * The {@code limit} tags whose name starts with {@code prefix}, ignoring case, most
+     * used first and then by name.
+     */
+    public List<Tag> complete(String prefix, int limit) {
+        Node node = snapshot.root;
+        String key = prefix.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+        }
+        if (node == null || limit <= 0) {
+            return List.of();
+        }
+
+        Map<Tag, Integer> usage = new HashMap<>();
+        for (Tag tag : node.tags) {
+            usage.put(tag, tagIndex.countGames(tag.getId()));
+        }
+        Comparator<Tag> ranking = Comparator.<Tag>comparingInt(usage::get).reversed()
+                .thenComparing(Tag::getName, String.CASE_INSENSITIVE_ORDER)
+                .thenComparing(Tag::getId);
+        PriorityQueue<Tag> best = new PriorityQueue<>(Math.min(limit, node.tags.size()) + 1, ranking.reversed());
+        for (Tag tag : node.tags) {
+            best.add(tag);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Tag> result = new ArrayList<>(best);
+        result.sort(ranking);
+        return result;
+    }
+
+    private static final class Snapshot {
+        private final List<Tag> tags;
+        private final Map<Long, Tag> byId = new HashMap<>();
+        private final Map<String, Tag> byName = new HashMap<>();
+        private final Node root = new Node();
+
+        private Snapshot(List<Tag> tags) {
+            this.tags = Collections.unmodifiableList(tags);
+            for (Tag tag : tags) {
+                String name = tag.getName().toLowerCase(Locale.ROOT);
+                byId.put(tag.getId(), tag);
+                byName.putIfAbsent(name, tag);
+                Node node = root;
+                node.tags.add(tag);
+                for (int i = 0; i < name.length(); i++) {
+                    node = node.children.computeIfAbsent(name.charAt(i), c -> new Node());
+                    node.tags.add(tag);
+                }
+            }
+        }
+    }
+
+    // Each node lists every tag below it, so a lookup costs the prefix length plus the ranking.
+    private static final class Node {
+        private final Map<Character, Node> children = new LinkedHashMap<>();
+        private final List<Tag> tags = new ArrayList<>();
+    }
+}
@@ -0,0 +1,50 @@
+package com.gamedb.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Boolean tag expression for catalog searches: a game matches when it carries every
+ * tag of {@code allOf}, at least one tag of {@code anyOf} (if given) and none of
+ * {@code noneOf}. Entries are tag ids or tag names.
+ */
+public class TagFilter {
+    private final List<String> allOf;
+    private final List<String> anyOf;
+    private final List<String> noneOf;
+
+    public TagFilter(Collection<String> allOf, Collection<String> anyOf, Collection<String> noneOf) {
+        this.allOf = clean(allOf);
+        this.anyOf = clean(anyOf);
+        this.noneOf = clean(noneOf);
+    }
+
+    public List<String> getAllOf() {
+        return allOf;
+    }
+
+    public List<String> getAnyOf() {
+        return anyOf;
+    }
+
+    public List<String> getNoneOf() {
+        return noneOf;
+    }
+
+    public boolean isEmpty() {
+        return allOf.isEmpty() && anyOf.isEmpty() && noneOf.isEmpty();
+    }
+
+    private static List<String> clean(Collection<String> values) {
+        List<String> cleaned = new ArrayList<>();
+        if (values != null) {
+            for (String value : values) {
+                if (value != null && !value.isBlank()) {
+                    cleaned.add(value.trim());
+                }
+            }
+        }
+        return List.copyOf(cleaned);
+    }
+}
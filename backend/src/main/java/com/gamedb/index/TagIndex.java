@@ -0,0 +1,447 @@
+package com.gamedb.index;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Per-tag compressed bitmaps of game ids. Boolean tag filters and their counts are
+ * answered with bitmap intersections instead of joins over {@code game_tags}.
+ */
+@Component
+public class TagIndex {
+    private static final long[] NO_TAGS = new long[0];
+
+    // PostgreSQL streams in batches of this many rows, rather than buffering the whole result.
+    private static final int LOAD_FETCH_SIZE = 10_000;
+    private static final String GAME_IDS = "SELECT id FROM games";
+    private static final String GAME_TAGS = "SELECT game_id, tag_id FROM game_tags ORDER BY game_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, RoaringBitmap> gamesByTag = new HashMap<>();
+    private final Map<Long, long[]> tagsByGame = new HashMap<>();
+    private final RoaringBitmap allGames = new RoaringBitmap();
+    // Updates made while a rebuild loads, replayed onto what it loaded; null otherwise.
+    private List<Runnable> pending;
+
+    public TagIndex(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(LOAD_FETCH_SIZE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Reloads everything from the database. Rows are streamed, ordered by game, so
+     * each game's tags are grouped as they arrive; the index keeps serving the previous
+     * state until the new one is swapped in. Updates made on this node during the load
+     * are replayed after the swap, under the same write lock. Other nodes' writes are
+     * only covered because {@code CatalogChangeListener.markStart} runs first and has
+     * the listener apply them again once it starts.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void rebuild() {
+        RoaringBitmap games = new RoaringBitmap();
+        GameTagRows gameTags = new GameTagRows();
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                jdbcTemplate.query(GAME_IDS, (RowCallbackHandler) rs -> games.add(toInt(rs.getLong(1))));
+                jdbcTemplate.query(GAME_TAGS, gameTags);
+            });
+        } catch (RuntimeException ex) {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw ex;
+        }
+        gameTags.finishGame();
+        games.runOptimize();
+        gameTags.gamesByTag.values().forEach(RoaringBitmap::runOptimize);
+        lock.writeLock().lock();
+        try {
+            allGames.clear();
+            allGames.or(games);
+            gamesByTag.clear();
+            gamesByTag.putAll(gameTags.gamesByTag);
+            tagsByGame.clear();
+            tagsByGame.putAll(gameTags.tagsByGame);
+            List<Runnable> missed = pending;
+            pending = null;
+            missed.forEach(Runnable::run);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void setTags(Long gameId, Collection<Long> tagIds) {
+        long[] next = toSortedArray(tagIds);
+        update(() -> {
+            int id = toInt(gameId);
+            allGames.add(id);
+            for (long tagId : tagsByGame.getOrDefault(gameId, NO_TAGS)) {
+                if (Arrays.binarySearch(next, tagId) < 0) {
+                    unlink(tagId, id);
+                }
+            }
+            for (long tagId : next) {
+                gamesByTag.computeIfAbsent(tagId, key -> new RoaringBitmap()).add(id);
+            }
+            store(gameId, next);
+        });
+    }
+
+    public void addTag(Long gameId, Long tagId) {
+        update(() -> {
+            long[] current = tagsByGame.getOrDefault(gameId, NO_TAGS);
+            if (Arrays.binarySearch(current, tagId) < 0) {
+                long[] next = Arrays.copyOf(current, current.length + 1);
+                next[current.length] = tagId;
+                Arrays.sort(next);
+                store(gameId, next);
+            }
+            int id = toInt(gameId);
+            allGames.add(id);
+            gamesByTag.computeIfAbsent(tagId, key -> new RoaringBitmap()).add(id);
+        });
+    }
+
+    public void removeTag(Long gameId, Long tagId) {
+        update(() -> {
+            long[] current = tagsByGame.getOrDefault(gameId, NO_TAGS);
+            store(gameId, Arrays.stream(current).filter(existing -> existing != tagId).toArray());
+            unlink(tagId, toInt(gameId));
+        });
+    }
+
+    public void dropTag(Long tagId) {
+        update(() -> {
+            RoaringBitmap games = gamesByTag.remove(tagId);
+            if (games != null) {
+                games.forEach((int gameId) -> {
+                    long[] current = tagsByGame.getOrDefault((long) gameId, NO_TAGS);
+                    store((long) gameId, Arrays.stream(current).filter(existing -> existing != tagId).toArray());
+                });
+            }
+        });
+    }
+
+    /**
+     * Games carrying every tag of {@code allOf}, at least one of {@code anyOf} when it
+     * is not empty, and none of {@code noneOf}. The returned bitmap is owned by the caller.
+     */
+    public RoaringBitmap match(Collection<Long> allOf, Collection<Long> anyOf, Collection<Long> noneOf) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result;
+            if (!allOf.isEmpty()) {
+                List<RoaringBitmap> required = new ArrayList<>(allOf.size());
+                for (Long tagId : allOf) {
+                    RoaringBitmap games = gamesByTag.get(tagId);
+                    if (games == null) {
+                        return new RoaringBitmap();
+                    }
+                    required.add(games);
+                }
+                required.sort(Comparator.comparingInt(RoaringBitmap::getCardinality));
+                result = required.get(0).clone();
+                for (int i = 1; i < required.size() && !result.isEmpty(); i++) {
+                    result.and(required.get(i));
+                }
+                if (!anyOf.isEmpty()) {
+                    result.and(union(anyOf));
+                }
+            } else if (!anyOf.isEmpty()) {
+                result = union(anyOf);
+            } else {
+                result = allGames.clone();
+            }
+            if (!noneOf.isEmpty()) {
+                result.andNot(union(noneOf));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ranks games by weighted overlap with {@code tagIds}, where each tag weighs
+     * {@code ln(1 + games / gamesWithTag)} so that rare tags count more. The tag bitmaps
+     * are merged in id order and only the best {@code limit} games are retained, so the
+     * memory used does not depend on the size of the catalog.
+     */
+    public Ranking rankByTagWeight(Collection<Long> tagIds, Set<Long> excludedGameIds, int limit) {
+        lock.readLock().lock();
+        try {
+            List<PeekableIntIterator> iterators = new ArrayList<>();
+            List<Double> weights = new ArrayList<>();
+            int games = allGames.getCardinality();
+            for (Long tagId : new HashSet<>(tagIds)) {
+                RoaringBitmap tagged = gamesByTag.get(tagId);
+                if (tagged != null) {
+                    iterators.add(tagged.getIntIterator());
+                    weights.add(Math.log(1.0 + (double) games / tagged.getCardinality()));
+                }
+            }
+
+            Comparator<Scored> worstFirst = Comparator.comparingDouble(Scored::score)
+                    .thenComparing(Comparator.comparingInt(Scored::gameId).reversed());
+            PriorityQueue<Scored> best = new PriorityQueue<>(Math.max(1, limit), worstFirst);
+            int candidates = 0;
+            while (true) {
+                int next = Integer.MAX_VALUE;
+                boolean found = false;
+                for (PeekableIntIterator iterator : iterators) {
+                    if (iterator.hasNext() && iterator.peekNext() <= next) {
+                        next = iterator.peekNext();
+                        found = true;
+                    }
+                }
+                if (!found) {
+                    break;
+                }
+                double score = 0;
+                for (int i = 0; i < iterators.size(); i++) {
+                    PeekableIntIterator iterator = iterators.get(i);
+                    if (iterator.hasNext() && iterator.peekNext() == next) {
+                        score += weights.get(i);
+                        iterator.next();
+                    }
+                }
+                if (excludedGameIds.contains((long) next)) {
+                    continue;
+                }
+                candidates++;
+                Scored scored = new Scored(next, score);
+                if (best.size() < limit) {
+                    best.add(scored);
+                } else if (limit > 0 && worstFirst.compare(scored, best.peek()) > 0) {
+                    best.poll();
+                    best.add(scored);
+                }
+            }
+
+            List<Scored> ranked = new ArrayList<>(best);
+            ranked.sort(worstFirst.reversed());
+            List<Long> ids = new ArrayList<>(ranked.size());
+            for (Scored scored : ranked) {
+                ids.add((long) scored.gameId());
+            }
+            return new Ranking(ids, candidates);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The {@code limit} tags carried by the most of {@code games}, or of all games when
+     * null, with their counts; most first, then by id. Sets smaller than the number of
+     * tags are counted game by game from each game's tags, larger ones tag by tag with
+     * bitmap intersections, so the cost is bounded by whichever side is smaller.
+     */
+    public List<TagCount> topTags(RoaringBitmap games, int limit) {
+        lock.readLock().lock();
+        try {
+            Comparator<TagCount> leastFirst = Comparator.comparingInt(TagCount::count)
+                    .thenComparing(Comparator.comparingLong(TagCount::tagId).reversed());
+            PriorityQueue<TagCount> best = new PriorityQueue<>(leastFirst);
+            if (games != null && games.getCardinality() < gamesByTag.size()) {
+                Map<Long, Integer> counts = new HashMap<>();
+                games.forEach((int gameId) -> {
+                    for (long tagId : tagsByGame.getOrDefault((long) gameId, NO_TAGS)) {
+                        counts.merge(tagId, 1, Integer::sum);
+                    }
+                });
+                counts.forEach((tagId, count) -> keepBest(best, new TagCount(tagId, count), limit, leastFirst));
+            } else {
+                for (Map.Entry<Long, RoaringBitmap> entry : gamesByTag.entrySet()) {
+                    int count = games == null
+                            ? entry.getValue().getCardinality()
+                            : RoaringBitmap.andCardinality(entry.getValue(), games);
+                    if (count > 0) {
+                        keepBest(best, new TagCount(entry.getKey(), count), limit, leastFirst);
+                    }
+                }
+            }
+            List<TagCount> top = new ArrayList<>(best);
+            top.sort(leastFirst.reversed());
+            return top;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int gameCount() {
+        lock.readLock().lock();
+        try {
+            return allGames.getCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int countGames(Long tagId) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap games = gamesByTag.get(tagId);
+            return games == null ? 0 : games.getCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(Long gameId) {
+        lock.readLock().lock();
+        try {
+            return allGames.contains(toInt(gameId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Hands every tagged game and its sorted tags to {@code action}, under the read lock;
+     * the arrays are the index's own and must not be changed.
+     */
+    public void forEachGame(BiConsumer<Long, long[]> action) {
+        lock.readLock().lock();
+        try {
+            tagsByGame.forEach(action);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long[] tagsOf(Long gameId) {
+        lock.readLock().lock();
+        try {
+            return tagsByGame.getOrDefault(gameId, NO_TAGS).clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void update(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+            if (pending != null) {
+                pending.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public static int toInt(Long gameId) {
+        return Math.toIntExact(gameId);
+    }
+
+    private RoaringBitmap union(Collection<Long> tagIds) {
+        List<RoaringBitmap> bitmaps = new ArrayList<>(tagIds.size());
+        for (Long tagId : tagIds) {
+            RoaringBitmap games = gamesByTag.get(tagId);
+            if (games != null) {
+                bitmaps.add(games);
+            }
+        }
+        return FastAggregation.or(bitmaps.toArray(new RoaringBitmap[0]));
+    }
+
+    private static void keepBest(PriorityQueue<TagCount> best, TagCount candidate, int limit, Comparator<TagCount> leastFirst) {
+        if (best.size() < limit) {
+            best.add(candidate);
+        } else if (limit > 0 && leastFirst.compare(candidate, best.peek()) > 0) {
+            best.poll();
+            best.add(candidate);
+        }
+    }
+
+    private void unlink(long tagId, int gameId) {
+        RoaringBitmap games = gamesByTag.get(tagId);
+        if (games != null) {
+            games.remove(gameId);
+            if (games.isEmpty()) {
+                gamesByTag.remove(tagId);
+            }
+        }
+    }
+
+    private void store(Long gameId, long[] tagIds) {
+        if (tagIds.length == 0) {
+            tagsByGame.remove(gameId);
+        } else {
+            tagsByGame.put(gameId, tagIds);
+        }
+    }
+
+    private static long[] toSortedArray(Collection<Long> tagIds) {
+        return tagIds.stream().mapToLong(Long::longValue).distinct().sorted().toArray();
+    }
+
+    private record Scored(int gameId, double score) {
+    }
+
+    private static final class GameTagRows implements RowCallbackHandler {
+        private final Map<Long, RoaringBitmap> gamesByTag = new HashMap<>();
+        private final Map<Long, long[]> tagsByGame = new HashMap<>();
+        private final List<Long> currentTags = new ArrayList<>();
+        private long currentGame;
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long gameId = rs.getLong(1);
+            long tagId = rs.getLong(2);
+            if (gameId != currentGame) {
+                finishGame();
+                currentGame = gameId;
+            }
+            currentTags.add(tagId);
+            gamesByTag.computeIfAbsent(tagId, key -> new RoaringBitmap()).add(toInt(gameId));
+        }
+
+        void finishGame() {
+            if (!currentTags.isEmpty()) {
+                tagsByGame.put(currentGame, toSortedArray(currentTags));
+                currentTags.clear();
+            }
+        }
+    }
+}
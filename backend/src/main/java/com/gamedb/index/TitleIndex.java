@@ -0,0 +1,212 @@
+package com.gamedb.index;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * In-memory trigram index over game titles. Every word is padded with two leading
+ * blanks so that the first grams of a word double as prefix keys, and a candidate
+ * only has to share half of the query grams to match, which absorbs most typos.
+ */
+@Component
+public class TitleIndex {
+    private static final int GRAM = 3;
+    private static final double MIN_SIMILARITY = 0.5;
+    // Keeps the length bonus below the smallest similarity step between two matches.
+    private static final int LENGTH_DAMPING = 1000;
+
+    // PostgreSQL streams in batches of this many rows, rather than buffering the whole result.
+    private static final int LOAD_FETCH_SIZE = 10_000;
+    private static final String TITLES = "SELECT id, title FROM games";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private volatile Snapshot snapshot = new Snapshot();
+    // Updates made while a rebuild loads, replayed onto what it loaded; null otherwise.
+    private List<Consumer<Snapshot>> pending;
+
+    public TitleIndex(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(LOAD_FETCH_SIZE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Loads every title into a new snapshot and swaps it in, so searches keep using the
+     * previous one meanwhile. Runs after {@code CatalogChangeListener.markStart}, which
+     * covers other nodes' writes during the load; this node's own are replayed onto the
+     * new snapshot before the swap.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void rebuild() {
+        Snapshot loaded = new Snapshot();
+        synchronized (this) {
+            pending = new ArrayList<>();
+        }
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(TITLES,
+                    (RowCallbackHandler) rs -> loaded.put(rs.getLong(1), rs.getString(2))));
+        } catch (RuntimeException ex) {
+            synchronized (this) {
+                pending = null;
+            }
+            throw ex;
+        }
+        synchronized (this) {
+            pending.forEach(update -> update.accept(loaded));
+            pending = null;
+            snapshot = loaded;
+        }
+    }
+
+    public void put(Long id, String title) {
+        update(titles -> titles.put(id, title));
+    }
+
+    public void remove(Long id) {
+        update(titles -> titles.remove(id));
+    }
+
+    /**
+     * Returns all games whose title matches the query, best match first. Titles
+     * containing the query verbatim rank above fuzzy matches, titles starting with it
+     * rank above both, and shorter titles win among otherwise equal matches.
+     */
+    public List<Match> search(String query) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        Snapshot current = snapshot;
+        Set<String> queryGrams = grams(normalized, true);
+        Map<Long, Integer> shared = new HashMap<>();
+        for (String gram : queryGrams) {
+            Set<Long> ids = current.postings.get(gram);
+            if (ids != null) {
+                for (Long id : ids) {
+                    shared.merge(id, 1, Integer::sum);
+                }
+            }
+        }
+
+        int required = Math.max(1, (int) Math.ceil(queryGrams.size() * MIN_SIMILARITY));
+        List<Match> matches = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : shared.entrySet()) {
+            String title = current.titles.get(entry.getKey());
+            if (title == null) {
+                continue;
+            }
+            boolean contains = title.contains(normalized);
+            if (!contains && entry.getValue() < required) {
+                continue;
+            }
+            double score = entry.getValue() / (double) queryGrams.size() + 1.0 / (LENGTH_DAMPING + title.length());
+            if (contains) {
+                score += 1;
+            }
+            if (title.startsWith(normalized)) {
+                score += 1;
+            }
+            matches.add(new Match(entry.getKey(), score));
+        }
+        matches.sort(Match.RANKING);
+        return matches;
+    }
+
+    public int size() {
+        return snapshot.titles.size();
+    }
+
+    private synchronized void update(Consumer<Snapshot> change) {
+        change.accept(snapshot);
+        if (pending != null) {
+            pending.add(change);
+        }
+    }
+
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    /**
+     * The last word of a query is left open at the end so that it behaves as a prefix.
+     */
+    private static Set<String> grams(String normalized, boolean openEnded) {
+        Set<String> grams = new LinkedHashSet<>();
+        String[] words = normalized.split(" ");
+        for (int w = 0; w < words.length; w++) {
+            boolean open = openEnded && w == words.length - 1;
+            String padded = "  " + words[w] + (open ? "" : " ");
+            for (int i = 0; i + GRAM <= padded.length(); i++) {
+                grams.add(padded.substring(i, i + GRAM));
+            }
+        }
+        return grams;
+    }
+
+    private static final class Snapshot {
+        private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+        private final Map<Long, String> titles = new ConcurrentHashMap<>();
+
+        private void put(Long id, String title) {
+            String normalized = normalize(title);
+            String previous = titles.put(id, normalized);
+            if (normalized.equals(previous)) {
+                return;
+            }
+            if (previous != null) {
+                unindex(id, previous);
+            }
+            for (String gram : grams(normalized, false)) {
+                postings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+
+        private void remove(Long id) {
+            String previous = titles.remove(id);
+            if (previous != null) {
+                unindex(id, previous);
+            }
+        }
+
+        private void unindex(Long id, String title) {
+            for (String gram : grams(title, false)) {
+                Set<Long> ids = postings.get(gram);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        postings.remove(gram, ids);
+                    }
+                }
+            }
+        }
+    }
+
+    public record Match(long id, double score) {
+        public static final Comparator<Match> RANKING = Comparator.comparingDouble(Match::score).reversed()
+                .thenComparingLong(Match::id);
+    }
+}
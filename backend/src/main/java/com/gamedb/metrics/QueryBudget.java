@@ -0,0 +1,19 @@
+package com.gamedb.metrics;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The most SQL statements a controller method may execute while handling one request,
+ * through Hibernate or JDBC, including lazy loads during serialization and the body of
+ * a streaming response. Handlers without it get {@code gamedb.query-budget.default}.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+    int value();
+}
@@ -0,0 +1,133 @@
+package com.gamedb.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What the database was asked to do on behalf of the request being handled on this
+ * thread, checked against the handler's statement budget. An async request hands its
+ * statistics from thread to thread, but only one of them counts at a time, so the
+ * counters need no synchronization.
+ */
+public final class RequestStatistics {
+    private static final ThreadLocal<RequestStatistics> CURRENT = new ThreadLocal<>();
+    // Enough to spot the repeated statement of an N+1 without holding every statement of a runaway request.
+    private static final int MAX_LOGGED_STATEMENTS = 50;
+
+    private int budget;
+    private final boolean enforce;
+    private final List<String> statementLog = new ArrayList<>();
+    private int statements;
+    private int entityLoads;
+    private int collectionFetches;
+
+    private RequestStatistics(int budget, boolean enforce) {
+        this.budget = budget;
+        this.enforce = enforce;
+    }
+
+    /**
+     * Starts counting on this thread. With {@code enforce}, the first statement over
+     * {@code budget} fails with a {@link QueryBudgetExceededException}.
+     */
+    public static RequestStatistics begin(int budget, boolean enforce) {
+        RequestStatistics statistics = new RequestStatistics(budget, enforce);
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    /**
+     * Counts on this thread into {@code statistics}, begun on another thread for the
+     * same request, until {@link #detach()} or {@link #end()}.
+     */
+    public static void attach(RequestStatistics statistics) {
+        CURRENT.set(statistics);
+    }
+
+    /**
+     * Stops counting on this thread without ending the request, which another thread
+     * carries on.
+     */
+    public static void detach() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Stops counting on this thread and returns what was counted, or null when nothing
+     * was being counted.
+     */
+    public static RequestStatistics end() {
+        RequestStatistics statistics = CURRENT.get();
+        CURRENT.remove();
+        return statistics;
+    }
+
+    /**
+     * Raises the budget of the request counted on this thread by {@code statements}, for
+     * handlers whose work grows with their input, such as each chunk of a bulk ingest.
+     */
+    public static void extendBudget(int statements) {
+        RequestStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.budget += statements;
+        }
+    }
+
+    static boolean isCounting() {
+        return CURRENT.get() != null;
+    }
+
+    static void statementExecuted(String sql) {
+        RequestStatistics statistics = CURRENT.get();
+        if (statistics == null) {
+            return;
+        }
+        statistics.statements++;
+        if (statistics.statementLog.size() < MAX_LOGGED_STATEMENTS) {
+            statistics.statementLog.add(sql);
+        }
+        if (statistics.enforce && statistics.statements > statistics.budget) {
+            throw new QueryBudgetExceededException("Statement " + statistics.statements
+                    + " exceeds the budget of " + statistics.budget + " for this request: " + sql);
+        }
+    }
+
+    static void entityLoaded() {
+        RequestStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.entityLoads++;
+        }
+    }
+
+    static void collectionFetched() {
+        RequestStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.collectionFetches++;
+        }
+    }
+
+    public boolean isOverBudget() {
+        return statements > budget;
+    }
+
+    public int getBudget() {
+        return budget;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public int getEntityLoads() {
+        return entityLoads;
+    }
+
+    public int getCollectionFetches() {
+        return collectionFetches;
+    }
+
+    public List<String> getStatementLog() {
+        return Collections.unmodifiableList(statementLog);
+    }
+}
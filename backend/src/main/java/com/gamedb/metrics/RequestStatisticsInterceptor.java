@@ -0,0 +1,110 @@
+package com.gamedb.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.Callable;
+
+/**
+ * Counts database work per request and records it per controller method, so a page
+ * that starts issuing a statement per row shows up as a jump in its distribution.
+ * Requests over their {@link QueryBudget} are logged with the statements they ran.
+ * <p>
+ * An async request keeps its statistics in a request attribute: the thread running its
+ * callable, such as a streaming response body, and the async dispatch that completes it
+ * count into the same ones.
+ */
+public class RequestStatisticsInterceptor implements AsyncHandlerInterceptor, CallableProcessingInterceptor {
+    private static final String STATISTICS = RequestStatistics.class.getName();
+    private static final Logger log = LoggerFactory.getLogger(RequestStatisticsInterceptor.class);
+
+    private final MeterRegistry meterRegistry;
+    private final int defaultBudget;
+    private final boolean enforce;
+
+    public RequestStatisticsInterceptor(MeterRegistry meterRegistry, int defaultBudget, boolean enforce) {
+        this.meterRegistry = meterRegistry;
+        this.defaultBudget = defaultBudget;
+        this.enforce = enforce;
+    }
+
+    /**
+     * {@code Controller.method} for controller handlers, used to tag request metrics.
+     */
+    public static String handlerName(Object handler) {
+        if (handler instanceof HandlerMethod) {
+            HandlerMethod method = (HandlerMethod) handler;
+            return method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+        }
+        return "none";
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        Object started = request.getAttribute(STATISTICS);
+        if (request.getDispatcherType() == DispatcherType.ASYNC && started instanceof RequestStatistics) {
+            RequestStatistics.attach((RequestStatistics) started);
+        } else {
+            QueryBudget budget = ((HandlerMethod) handler).getMethodAnnotation(QueryBudget.class);
+            request.setAttribute(STATISTICS, RequestStatistics.begin(budget != null ? budget.value() : defaultBudget, enforce));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RequestStatistics statistics = RequestStatistics.end();
+        if (statistics == null) {
+            return;
+        }
+        String name = handlerName(handler);
+        record("hibernate.request.statements", name, statistics.getStatements());
+        record("hibernate.request.entity.loads", name, statistics.getEntityLoads());
+        record("hibernate.request.collection.fetches", name, statistics.getCollectionFetches());
+        if (statistics.isOverBudget()) {
+            Counter.builder("hibernate.request.budget.exceeded").tag("handler", name).register(meterRegistry).increment();
+            log.warn("{} ran {} statements, over its budget of {}:\n{}", name, statistics.getStatements(),
+                    statistics.getBudget(), String.join("\n", statistics.getStatementLog()));
+        }
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestStatistics.detach();
+    }
+
+    @Override
+    public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+        Object statistics = request.getAttribute(STATISTICS, RequestAttributes.SCOPE_REQUEST);
+        if (statistics instanceof RequestStatistics) {
+            RequestStatistics.attach((RequestStatistics) statistics);
+        }
+    }
+
+    @Override
+    public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+        RequestStatistics.detach();
+    }
+
+    private void record(String metric, String handler, int count) {
+        DistributionSummary.builder(metric)
+                .tag("handler", handler)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry)
+                .record(count);
+    }
+}
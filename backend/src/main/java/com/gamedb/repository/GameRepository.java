@@ -2,31 +2,37 @@ package com.gamedb.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import com.gamedb.Entity.Game;
+import com.gamedb.dto.GameSummaryDTO;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+
 public interface GameRepository extends JpaRepository<Game, Long> {
     Page<Game> findAll(Pageable pageable);
 
-    
-    @Query("SELECT g FROM Game g WHERE LOWER(g.title) LIKE LOWER(CONCAT('%', :title, '%'))")
-    Page<Game> findByTitleContainingIgnoreCase(@Param("title") String title, Pageable pageable);
-
-    @Query("SELECT DISTINCT g FROM Game g JOIN g.tags t WHERE t.id = :tagId")
-    Page<Game> findByTagId(@Param("tagId") Long tagId, Pageable pageable);
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"), @QueryHint(name = HINT_CACHE_REGION, value = "catalog-queries")})
+    @Query("SELECT g.id FROM Game g ORDER BY g.id")
+    Slice<Long> findIdSlice(Pageable pageable);
 
-   
-    @Query("SELECT DISTINCT g FROM Game g JOIN g.tags t WHERE LOWER(g.title) LIKE LOWER(CONCAT('%', :title, '%')) AND t.id = :tagId")
-    Page<Game> findByTitleAndTagId(@Param("title") String title, @Param("tagId") Long tagId, Pageable pageable);
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"), @QueryHint(name = HINT_CACHE_REGION, value = "catalog-queries")})
+    @Query("SELECT g.id FROM Game g WHERE g.id > :after ORDER BY g.id")
+    Slice<Long> findIdSliceAfter(@Param("after") long after, Pageable pageable);
 
-  
-    @Query("SELECT DISTINCT g FROM Game g JOIN g.tags t WHERE t.id IN :tagIds")
-    List<Game> findByTagIds(@Param("tagIds") List<Long> tagIds);
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"), @QueryHint(name = HINT_CACHE_REGION, value = "catalog-queries")})
+    @Query("SELECT new com.gamedb.dto.GameSummaryDTO(g.id, g.title, g.releaseDate, g.price, g.imageUrl, g.steamLink) "
+            + "FROM Game g WHERE g.id IN :ids")
+    List<GameSummaryDTO> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
 
     
     List<Game> findByTags_Id(Long tagId);
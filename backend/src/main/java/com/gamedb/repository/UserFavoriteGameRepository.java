@@ -1,15 +1,44 @@
 package com.gamedb.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import com.gamedb.Entity.UserFavoriteGame;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 
+import static org.hibernate.annotations.QueryHints.NATIVE_SPACES;
+
 public interface UserFavoriteGameRepository extends JpaRepository<UserFavoriteGame, Long> {
     List<UserFavoriteGame> findByUser_Id(Long userId);
 
-    boolean existsByUser_IdAndGame_Id(Long userId, Long gameId);
+    @Query("SELECT f.game.id FROM UserFavoriteGame f WHERE f.user.id = :userId")
+    List<Long> findGameIdsByUserId(@Param("userId") Long userId);
+
+    /**
+     * Removes the favorite when it exists and adds it otherwise, in a single statement.
+     * Returns 1 when the game was added, -1 when it was removed and 0 when nothing
+     * changed, because a concurrent toggle added it first.
+     */
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "user_favorite_games"))
+    @Query(value = "WITH removed AS (DELETE FROM user_favorite_games WHERE user_id = :userId AND game_id = :gameId RETURNING 1), "
+            + "added AS (INSERT INTO user_favorite_games (user_id, game_id) SELECT :userId, :gameId WHERE NOT EXISTS (SELECT 1 FROM removed) "
+            + "ON CONFLICT (user_id, game_id) DO NOTHING RETURNING 1) "
+            + "SELECT CAST((SELECT count(*) FROM added) - (SELECT count(*) FROM removed) AS integer)", nativeQuery = true)
+    int toggle(@Param("userId") Long userId, @Param("gameId") Long gameId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "user_favorite_games"))
+    @Query(value = "INSERT INTO user_favorite_games (user_id, game_id) SELECT :userId, g.id FROM games g WHERE g.id IN (:gameIds) "
+            + "ON CONFLICT (user_id, game_id) DO NOTHING", nativeQuery = true)
+    int addAll(@Param("userId") Long userId, @Param("gameIds") Collection<Long> gameIds);
 
-    void deleteByUser_IdAndGame_Id(Long userId, Long gameId);
+    @Modifying
+    @Query("DELETE FROM UserFavoriteGame f WHERE f.user.id = :userId AND f.game.id IN :gameIds")
+    int removeAll(@Param("userId") Long userId, @Param("gameIds") Collection<Long> gameIds);
 }
@@ -1,15 +1,44 @@
 package com.gamedb.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import com.gamedb.Entity.UserFavoriteTag;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 
+import static org.hibernate.annotations.QueryHints.NATIVE_SPACES;
+
 public interface UserFavoriteTagRepository extends JpaRepository<UserFavoriteTag, Long> {
     List<UserFavoriteTag> findByUser_Id(Long userId);
 
-    boolean existsByUser_IdAndTag_Id(Long userId, Long tagId);
+    @Query("SELECT f.tag.id FROM UserFavoriteTag f WHERE f.user.id = :userId")
+    List<Long> findTagIdsByUserId(@Param("userId") Long userId);
+
+    /**
+     * Removes the favorite when it exists and adds it otherwise, in a single statement.
+     * Returns 1 when the tag was added, -1 when it was removed and 0 when nothing
+     * changed, because a concurrent toggle added it first.
+     */
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "user_favorite_tags"))
+    @Query(value = "WITH removed AS (DELETE FROM user_favorite_tags WHERE user_id = :userId AND tag_id = :tagId RETURNING 1), "
+            + "added AS (INSERT INTO user_favorite_tags (user_id, tag_id) SELECT :userId, :tagId WHERE NOT EXISTS (SELECT 1 FROM removed) "
+            + "ON CONFLICT (user_id, tag_id) DO NOTHING RETURNING 1) "
+            + "SELECT CAST((SELECT count(*) FROM added) - (SELECT count(*) FROM removed) AS integer)", nativeQuery = true)
+    int toggle(@Param("userId") Long userId, @Param("tagId") Long tagId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "user_favorite_tags"))
+    @Query(value = "INSERT INTO user_favorite_tags (user_id, tag_id) SELECT :userId, t.id FROM tags t WHERE t.id IN (:tagIds) "
+            + "ON CONFLICT (user_id, tag_id) DO NOTHING", nativeQuery = true)
+    int addAll(@Param("userId") Long userId, @Param("tagIds") Collection<Long> tagIds);
 
-    void deleteByUser_IdAndTag_Id(Long userId, Long tagId);
+    @Modifying
+    @Query("DELETE FROM UserFavoriteTag f WHERE f.user.id = :userId AND f.tag.id IN :tagIds")
+    int removeAll(@Param("userId") Long userId, @Param("tagIds") Collection<Long> tagIds);
 }
@@ -0,0 +1,33 @@
+package com.gamedb.security;
+
+import com.gamedb.Entity.Role;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.time.Instant;
+import java.util.List;
+
+public class AuthenticatedUser extends User {
+    private final Long id;
+    private final Role role;
+    private final Instant expiresAt;
+
+    public AuthenticatedUser(Long id, String username, String password, Role role, Instant expiresAt) {
+        super(username, password, List.of(new SimpleGrantedAuthority("ROLE_" + role.name())));
+        this.id = id;
+        this.role = role;
+        this.expiresAt = expiresAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+}
@@ -1,9 +1,13 @@
 package com.gamedb.security;
 
+import com.gamedb.Entity.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -12,20 +16,31 @@ import java.util.Date;
 
 @Component
 public class JwtUtil {
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
+
     private final Key key;
     private final long expirationMs;
+    private final JwtParser parser;
+    private final Timer parseTimer;
 
-    public JwtUtil(@Value("${gamedb.jwt.secret}") String secret, @Value("${gamedb.jwt.expirationMs}") long expirationMs) {
+    public JwtUtil(@Value("${gamedb.jwt.secret}") String secret, @Value("${gamedb.jwt.expirationMs}") long expirationMs,
+                   MeterRegistry meterRegistry) {
        
         this.key = Keys.hmacShaKeyFor(secret.getBytes());
         this.expirationMs = expirationMs;
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.parseTimer = Timer.builder("jwt.parse.duration")
+                .publishPercentiles(0.5, 0.95, 0.99).register(meterRegistry);
     }
 
-    public String generateToken(String username) {
+    public String generateToken(User user) {
         Date now = new Date();
         Date expiry = new Date(now.getTime() + expirationMs);
         return Jwts.builder()
-                .setSubject(username)
+                .setSubject(user.getUsername())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(ROLE_CLAIM, user.getRole().name())
                 .setIssuedAt(now)
                 .setExpiration(expiry)
                 .signWith(key, SignatureAlgorithm.HS256)
@@ -33,6 +48,6 @@ public class JwtUtil {
     }
 
     public Claims parseClaims(String token) {
-        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+        return parseTimer.record(() -> parser.parseClaimsJws(token).getBody());
     }
 }
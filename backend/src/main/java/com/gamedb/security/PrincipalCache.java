@@ -0,0 +1,85 @@
+package com.gamedb.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.function.Function;
+
+/**
+ * Verified bearer tokens mapped to their principal, so repeated requests with the same
+ * token skip both signature verification and the user lookup. Entries live at most
+ * {@code ttl} and never past the token's own expiry.
+ */
+@Component
+public class PrincipalCache {
+    private final Cache<String, AuthenticatedUser> principals;
+    private final Cache<String, Instant> roleChanges;
+
+    public PrincipalCache(@Value("${gamedb.jwt.principal-cache.max-size:10000}") long maxSize,
+                          @Value("${gamedb.jwt.principal-cache.ttl:5m}") Duration ttl,
+                          @Value("${gamedb.jwt.expirationMs}") long expirationMs,
+                          MeterRegistry meterRegistry) {
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry(ttl))
+                .recordStats()
+                .build();
+        this.roleChanges = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(expirationMs))
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, "jwtPrincipals");
+    }
+
+    public AuthenticatedUser get(String token, Function<String, AuthenticatedUser> loader) {
+        return principals.get(token, loader);
+    }
+
+    /**
+     * Drops every cached principal of {@code username} and marks tokens issued before
+     * now as stale, so their role and id claims are no longer trusted without a lookup.
+     */
+    public void invalidateUser(String username) {
+        roleChanges.put(username, Instant.now());
+        principals.asMap().values().removeIf(principal -> principal.getUsername().equals(username));
+    }
+
+    public boolean isStale(String username, Date issuedAt) {
+        Instant changedAt = roleChanges.getIfPresent(username);
+        return changedAt != null && (issuedAt == null || !issuedAt.toInstant().isAfter(changedAt));
+    }
+
+    private static final class TokenExpiry implements Expiry<String, AuthenticatedUser> {
+        private final long ttlNanos;
+
+        private TokenExpiry(Duration ttl) {
+            this.ttlNanos = ttl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(String token, AuthenticatedUser principal, long currentTime) {
+            if (principal.getExpiresAt() == null) {
+                return ttlNanos;
+            }
+            long untilExpiry = Duration.between(Instant.now(), principal.getExpiresAt()).toNanos();
+            return Math.max(0, Math.min(ttlNanos, untilExpiry));
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, AuthenticatedUser principal, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String token, AuthenticatedUser principal, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.gamedb.seed;
+
+import com.gamedb.Entity.Role;
+import com.gamedb.changes.ChangedEntity;
+import com.gamedb.config.CatalogSeedProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates a synthetic catalog of games, tags, game tags, users and favorites, streams
+ * it into the database with COPY, and exits. Run the backend with the {@code seed}
+ * profile and {@code gamedb.seed.*} properties to pick the size and skew. Rows are
+ * appended after the existing ones in a single transaction, so nothing else should be
+ * writing to the database meanwhile. The same settings always produce the same data.
+ */
+@Component
+@Profile("seed")
+@EnableConfigurationProperties(CatalogSeedProperties.class)
+public class CatalogSeeder implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(CatalogSeeder.class);
+    private static final String[] TITLE_WORDS = {
+            "dark", "souls", "legend", "witch", "star", "craft", "hollow", "knight", "space", "station",
+            "dragon", "age", "final", "fantasy", "city", "builder", "racing", "league", "empire", "war",
+            "shadow", "hunter", "island", "survival", "rogue", "dungeon", "sky", "ocean", "iron", "storm",
+            "ghost", "tactics", "farm", "story", "cyber", "punk", "forest", "quest", "zero", "horizon",
+            "crimson", "frontier", "galaxy", "kingdom", "machine", "night", "orbit", "planet", "realm", "saga",
+            "siege", "spirit", "steel", "sun", "titan", "tower", "valley", "void", "wild", "winter"};
+    private static final String[] TAG_WORDS = {
+            "action", "adventure", "rpg", "strategy", "simulation", "puzzle", "platformer", "shooter",
+            "roguelike", "survival", "horror", "sandbox", "open-world", "multiplayer", "co-op", "indie",
+            "casual", "racing", "sports", "fighting", "stealth", "metroidvania", "turn-based", "pixel-art",
+            "story-rich", "sci-fi", "fantasy", "crafting", "building", "management"};
+    private static final LocalDate FIRST_RELEASE = LocalDate.of(1990, 1, 1);
+    private static final int RELEASE_DAYS = 13_000;
+    // Users vary around the configured mean; this caps the few very active ones.
+    private static final int MAX_FAVORITES_FACTOR = 10;
+    private static final String[] SEEDED_TABLES = {
+            "tags", "games", "game_tags", "users", "user_favorite_games", "user_favorite_tags"};
+    private static final String FOREIGN_KEYS = "SELECT conrelid::regclass::text, quote_ident(conname), "
+            + "pg_get_constraintdef(oid) FROM pg_constraint "
+            + "WHERE contype = 'f' AND conrelid = ANY (?::regclass[])";
+    private static final String SECONDARY_INDEXES = "SELECT i.indexrelid::regclass::text, pg_get_indexdef(i.indexrelid) "
+            + "FROM pg_index i WHERE i.indrelid = ANY (?::regclass[]) AND NOT EXISTS ("
+            + "SELECT 1 FROM pg_constraint c WHERE c.conindid = i.indexrelid AND c.conrelid = i.indrelid)";
+
+    private final DataSource dataSource;
+    private final PasswordEncoder passwordEncoder;
+    private final CatalogSeedProperties properties;
+    private final ApplicationContext context;
+
+    public CatalogSeeder(DataSource dataSource, PasswordEncoder passwordEncoder, CatalogSeedProperties properties,
+                         ApplicationContext context) {
+        this.dataSource = dataSource;
+        this.passwordEncoder = passwordEncoder;
+        this.properties = properties;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws SQLException {
+        if (properties.getMinTagsPerGame() > properties.getMaxTagsPerGame()) {
+            throw new IllegalArgumentException("gamedb.seed.min-tags-per-game is above gamedb.seed.max-tags-per-game");
+        }
+        long started = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                seed(connection);
+                connection.commit();
+            } catch (SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            }
+            connection.setAutoCommit(true);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ANALYZE");
+            }
+        }
+        log.info("Seeded the catalog in {} s", TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started));
+        System.exit(SpringApplication.exit(context));
+    }
+
+    private void seed(Connection connection) throws SQLException {
+        List<String> recreate = dropForeignKeysAndIndexes(connection);
+        SplittableRandom random = new SplittableRandom(properties.getRandomSeed());
+        long firstTag = lastId(connection, "tags") + 1;
+        long firstGame = lastId(connection, "games") + 1;
+        long firstUser = lastId(connection, "users") + 1;
+        SkewedSampler tagSampler = new SkewedSampler(properties.getTags(), properties.getSkew());
+        SkewedSampler gameSampler = new SkewedSampler(properties.getGames(), properties.getSkew());
+
+        copy(connection, "tags", "id, name", copy -> {
+            for (long id = firstTag; id < firstTag + properties.getTags(); id++) {
+                copy.field(id).field(TAG_WORDS[(int) (id % TAG_WORDS.length)] + "-" + id).endRow();
+            }
+        });
+        copy(connection, "games", "id, title, description, release_date, price, image_url, steam_link", copy -> {
+            for (long id = firstGame; id < firstGame + properties.getGames(); id++) {
+                copy.field(id)
+                        .field(title(random))
+                        .field("Synthetic game " + id + ".")
+                        .field(FIRST_RELEASE.plusDays(random.nextInt(RELEASE_DAYS)).toString())
+                        .field(price(random.nextInt(6_000)))
+                        .field("https://cdn.example.com/games/" + id + ".jpg")
+                        .field("https://store.steampowered.com/app/" + id)
+                        .endRow();
+            }
+        });
+        int tagsPerGameRange = properties.getMaxTagsPerGame() - properties.getMinTagsPerGame() + 1;
+        copy(connection, "game_tags", "game_id, tag_id", copy -> {
+            Set<Long> picked = new HashSet<>();
+            for (long gameId = firstGame; gameId < firstGame + properties.getGames(); gameId++) {
+                int count = properties.getMinTagsPerGame() + random.nextInt(tagsPerGameRange);
+                for (long tagIndex : pick(random, tagSampler, count, properties.getTags(), picked)) {
+                    copy.field(gameId).field(firstTag + tagIndex).endRow();
+                }
+            }
+        });
+        String password = passwordEncoder.encode(properties.getUserPassword());
+        copy(connection, "users", "id, username, password, role", copy -> {
+            for (long id = firstUser; id < firstUser + properties.getUsers(); id++) {
+                copy.field(id).field("seed-user-" + id).field(password).field(Role.USER.name()).endRow();
+            }
+        });
+        copy(connection, "user_favorite_games", "user_id, game_id", copy -> {
+            Set<Long> picked = new HashSet<>();
+            for (long userId = firstUser; userId < firstUser + properties.getUsers(); userId++) {
+                int count = favoriteCount(random, properties.getFavoriteGamesPerUser());
+                for (long gameIndex : pick(random, gameSampler, count, properties.getGames(), picked)) {
+                    copy.field(userId).field(firstGame + gameIndex).endRow();
+                }
+            }
+        });
+        copy(connection, "user_favorite_tags", "user_id, tag_id", copy -> {
+            Set<Long> picked = new HashSet<>();
+            for (long userId = firstUser; userId < firstUser + properties.getUsers(); userId++) {
+                int count = favoriteCount(random, properties.getFavoriteTagsPerUser());
+                for (long tagIndex : pick(random, tagSampler, count, properties.getTags(), picked)) {
+                    copy.field(userId).field(firstTag + tagIndex).endRow();
+                }
+            }
+        });
+        try (Statement statement = connection.createStatement()) {
+            for (String table : new String[]{"tags", "games", "users"}) {
+                statement.execute("SELECT setval(pg_get_serial_sequence('" + table + "', 'id'), "
+                        + "(SELECT max(id) FROM " + table + "))");
+            }
+            // Moves the catalog version on, so ETags handed out before the seed stop matching.
+            statement.execute("INSERT INTO catalog_changes (entity, entity_id, origin) VALUES ('"
+                    + ChangedEntity.GAME.name() + "', " + (firstGame + properties.getGames() - 1) + ", 'seed')");
+            long started = System.nanoTime();
+            statement.execute("SET LOCAL maintenance_work_mem = '" + properties.getMaintenanceWorkMem() + "'");
+            for (String sql : recreate) {
+                statement.execute(sql);
+            }
+            log.info("Recreated {} foreign keys and indexes in {} ms", recreate.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        }
+    }
+
+    /**
+     * Drops the foreign keys and secondary indexes of the seeded tables and returns the
+     * statements that recreate them. Checking and indexing every copied row one at a time
+     * costs several times more than building each once over the loaded data. Primary keys
+     * and unique constraints stay, since other tables reference them.
+     */
+    private static List<String> dropForeignKeysAndIndexes(Connection connection) throws SQLException {
+        List<String> drop = new ArrayList<>();
+        List<String> recreate = new ArrayList<>();
+        try (PreparedStatement query = connection.prepareStatement(FOREIGN_KEYS)) {
+            query.setArray(1, connection.createArrayOf("text", SEEDED_TABLES));
+            try (ResultSet result = query.executeQuery()) {
+                while (result.next()) {
+                    String table = result.getString(1);
+                    String name = result.getString(2);
+                    drop.add("ALTER TABLE " + table + " DROP CONSTRAINT " + name);
+                    recreate.add("ALTER TABLE " + table + " ADD CONSTRAINT " + name + " " + result.getString(3));
+                }
+            }
+        }
+        try (PreparedStatement query = connection.prepareStatement(SECONDARY_INDEXES)) {
+            query.setArray(1, connection.createArrayOf("text", SEEDED_TABLES));
+            try (ResultSet result = query.executeQuery()) {
+                while (result.next()) {
+                    drop.add("DROP INDEX " + result.getString(1));
+                    recreate.add(result.getString(2));
+                }
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : drop) {
+                statement.execute(sql);
+            }
+        }
+        return recreate;
+    }
+
+    private void copy(Connection connection, String table, String columns, RowWriter rows) throws SQLException {
+        long started = System.nanoTime();
+        long count;
+        try (CopyStream copy = new CopyStream(connection, table, columns)) {
+            rows.write(copy);
+            count = copy.finish();
+        }
+        long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        log.info("Copied {} rows into {} in {} ms ({} rows/s)", count, table, millis, count * 1000 / millis);
+    }
+
+    /**
+     * Up to {@code count} distinct indexes from the sampler, fewer when the skew makes
+     * the remaining ones too unlikely to draw.
+     */
+    private static Set<Long> pick(SplittableRandom random, SkewedSampler sampler, int count, long size, Set<Long> picked) {
+        picked.clear();
+        int wanted = (int) Math.min(count, size);
+        for (int attempt = 0; picked.size() < wanted && attempt < wanted * 8; attempt++) {
+            picked.add(sampler.next(random));
+        }
+        return picked;
+    }
+
+    // Exponentially distributed around the mean: most users have a few, some have many.
+    private static int favoriteCount(SplittableRandom random, int mean) {
+        return (int) Math.min((long) mean * MAX_FAVORITES_FACTOR, Math.round(-mean * Math.log(1 - random.nextDouble())));
+    }
+
+    private static String title(SplittableRandom random) {
+        String title = capitalize(TITLE_WORDS[random.nextInt(TITLE_WORDS.length)]) + " "
+                + capitalize(TITLE_WORDS[random.nextInt(TITLE_WORDS.length)]);
+        return random.nextInt(5) == 0 ? title + " " + (2 + random.nextInt(4)) : title;
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    private static String price(int cents) {
+        int fraction = cents % 100;
+        return cents / 100 + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+
+    private static long lastId(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT coalesce(max(id), 0) FROM " + table)) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(CopyStream copy) throws SQLException;
+    }
+}
@@ -0,0 +1,43 @@
+package com.gamedb.seed;
+
+import java.math.BigInteger;
+import java.util.SplittableRandom;
+
+/**
+ * Draws indexes in {@code [0, size)} by rank from a bounded power law, so rank 0 is
+ * picked most often and the tail rarely. Ranks are mapped to indexes through a fixed
+ * permutation, so the popular items are spread over the id range instead of being
+ * the oldest rows.
+ */
+final class SkewedSampler {
+    private final long size;
+    private final double exponent;
+    private final double span;
+    private final long stride;
+
+    SkewedSampler(long size, double exponent) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Cannot sample from an empty range");
+        }
+        this.size = size;
+        this.exponent = exponent;
+        this.span = exponent == 1 ? Math.log(size + 1) : Math.pow(size + 1, 1 - exponent) - 1;
+        this.stride = coprimeStride(size);
+    }
+
+    long next(SplittableRandom random) {
+        double u = random.nextDouble();
+        // Inverse CDF of the continuous power law on [1, size + 1).
+        double x = exponent == 1 ? Math.exp(u * span) : Math.pow(span * u + 1, 1 / (1 - exponent));
+        long rank = Math.min(size - 1, (long) x - 1);
+        return rank * stride % size;
+    }
+
+    private static long coprimeStride(long size) {
+        long stride = Math.max(1, (long) (size * 0.618_033_988_7));
+        while (BigInteger.valueOf(stride).gcd(BigInteger.valueOf(size)).longValue() != 1) {
+            stride++;
+        }
+        return stride;
+    }
+}
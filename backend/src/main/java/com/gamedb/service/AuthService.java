@@ -2,28 +2,40 @@ package com.gamedb.service;
 
 import com.gamedb.Entity.Role;
 import com.gamedb.Entity.User;
+import com.gamedb.changes.CatalogChangeLog;
+import com.gamedb.changes.ChangedEntity;
 import com.gamedb.dto.AuthRequest;
 import com.gamedb.dto.AuthResponse;
 import com.gamedb.repository.UserRepository;
 import com.gamedb.security.JwtUtil;
-import org.springframework.security.authentication.AuthenticationManager;
+import com.gamedb.security.PasswordHasher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
 
 @Service
 public class AuthService {
+    private static final Logger log = LoggerFactory.getLogger(AuthService.class);
+
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
-    private final AuthenticationManager authenticationManager;
+    private final PasswordHasher passwordHasher;
     private final JwtUtil jwtUtil;
+    private final CatalogChangeLog changeLog;
+    // Verified against when the username is unknown, so both cases cost one BCrypt check.
+    private final String unknownUserHash;
 
-    public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthenticationManager authenticationManager, JwtUtil jwtUtil) {
+    public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder, PasswordHasher passwordHasher, JwtUtil jwtUtil,
+                       CatalogChangeLog changeLog) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
-        this.authenticationManager = authenticationManager;
+        this.passwordHasher = passwordHasher;
         this.jwtUtil = jwtUtil;
+        this.changeLog = changeLog;
+        this.unknownUserHash = passwordEncoder.encode("unknown-user");
     }
 
     public AuthResponse register(AuthRequest request) {
@@ -32,26 +44,41 @@ public class AuthService {
         }
         User user = new User();
         user.setUsername(request.getUsername());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
-        user.setRole(Role.USER); 
+        user.setPassword(passwordHasher.encode(request.getPassword()));
+        user.setRole(Role.USER);
         userRepository.save(user);
-        String token = jwtUtil.generateToken(user.getUsername());
+        String token = jwtUtil.generateToken(user);
         return new AuthResponse(token, user.getRole().toString());
     }
 
+    /**
+     * Gives {@code username} the admin role and records the change for the other nodes.
+     * Returns false when there is no such user.
+     */
+    @Transactional
+    public boolean promoteToAdmin(String username) {
+        Optional<User> found = userRepository.findByUsername(username);
+        found.ifPresent(user -> {
+            user.setRole(Role.ADMIN);
+            userRepository.save(user);
+            changeLog.record(ChangedEntity.USER, user.getId());
+        });
+        return found.isPresent();
+    }
+
     public AuthResponse login(AuthRequest request) {
-        try {
-            authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword()));
-        } catch (BadCredentialsException ex) {
+        Optional<User> found = userRepository.findByUsername(request.getUsername());
+        String encoded = found.map(User::getPassword).orElse(unknownUserHash);
+        if (!passwordHasher.matches(request.getPassword(), encoded) || found.isEmpty()) {
             throw new BadCredentialsException("Invalid credentials");
         }
-        User user = userRepository.findByUsername(request.getUsername()).orElseThrow(() -> new BadCredentialsException("Invalid credentials"));
+        User user = found.get();
         if (user.getRole() == null) {
             user.setRole(Role.USER);
             userRepository.save(user);
         }
-        String token = jwtUtil.generateToken(request.getUsername());
-        System.out.println("Login - User role: " + user.getRole().toString());
+        String token = jwtUtil.generateToken(user);
+        log.debug("Login - user {} with role {}", user.getUsername(), user.getRole());
         return new AuthResponse(token, user.getRole().toString());
     }
 }
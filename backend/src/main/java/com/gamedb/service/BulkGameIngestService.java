@@ -0,0 +1,256 @@
+package com.gamedb.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.gamedb.Entity.Tag;
+import com.gamedb.changes.CatalogChangeLog;
+import com.gamedb.changes.ChangedEntity;
+import com.gamedb.dto.BulkIngestResult;
+import com.gamedb.dto.GameDTO;
+import com.gamedb.dto.TagDTO;
+import com.gamedb.index.TagDictionary;
+import com.gamedb.metrics.RequestStatistics;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Date;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads games in bulk, bypassing JPA. Records are read one at a time from the request
+ * body and written in chunks, one transaction per chunk, with every table filled by a
+ * single JDBC batch. Game ids are reserved from their sequence up front, since identity
+ * inserts cannot be batched otherwise.
+ */
+@Service
+public class BulkGameIngestService {
+    // Two each for tags and games, three more batches, the change log lock and two entries, and the tag refresh.
+    private static final int STATEMENTS_PER_CHUNK = 11;
+    private static final String RESERVE_IDS = "SELECT nextval(pg_get_serial_sequence(?, 'id')) FROM generate_series(1, ?)";
+    private static final String INSERT_TAGS = "INSERT INTO tags (name) SELECT unnest(CAST(? AS text[])) "
+            + "ON CONFLICT (name) DO NOTHING RETURNING id, name";
+    private static final String SELECT_TAGS = "SELECT id, name FROM tags WHERE name = ANY (CAST(? AS text[]))";
+    private static final String INSERT_GAME = "INSERT INTO games (id, title, description, story, release_date, price, "
+            + "image_url, video_url, steam_link) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_GAME_TAG = "INSERT INTO game_tags (game_id, tag_id) VALUES (?, ?)";
+    private static final String INSERT_IMAGE = "INSERT INTO game_additional_images (game_id, image_url) VALUES (?, ?)";
+    private static final String INSERT_VIDEO = "INSERT INTO game_additional_videos (game_id, video_url) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final ObjectReader gameReader;
+    private final GameService gameService;
+    private final TagDictionary tagDictionary;
+    private final SessionFactory sessionFactory;
+    private final CatalogChangeLog changeLog;
+    private final int chunkSize;
+
+    public BulkGameIngestService(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 ObjectMapper objectMapper,
+                                 GameService gameService,
+                                 TagDictionary tagDictionary,
+                                 EntityManagerFactory entityManagerFactory,
+                                 CatalogChangeLog changeLog,
+                                 @Value("${gamedb.ingest.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.gameReader = objectMapper.readerFor(GameDTO.class);
+        this.gameService = gameService;
+        this.tagDictionary = tagDictionary;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.changeLog = changeLog;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Reads a JSON array or newline-delimited JSON objects. Tags are given by name, matched
+     * case-sensitively, and created when missing. A chunk that fails is rolled back and reported; the chunks
+     * around it are still written. Malformed input stops the ingest after the last
+     * complete chunk.
+     */
+    public BulkIngestResult ingest(InputStream in) throws IOException {
+        BulkIngestResult result = new BulkIngestResult();
+        Map<String, Long> tagIds = loadTagIds();
+        List<GameDTO> chunk = new ArrayList<>(chunkSize);
+        int position = 0;
+        try (MappingIterator<GameDTO> records = gameReader.readValues(in)) {
+            while (records.hasNextValue()) {
+                chunk.add(records.nextValue());
+                if (chunk.size() == chunkSize) {
+                    result.add(write(position, chunk, tagIds));
+                    position += chunk.size();
+                    chunk.clear();
+                }
+            }
+        } catch (JsonProcessingException ex) {
+            if (!chunk.isEmpty()) {
+                result.add(write(position, chunk, tagIds));
+                position += chunk.size();
+            }
+            result.add(new BulkIngestResult.Chunk(position, 0, null, null, "Malformed input: " + ex.getOriginalMessage()));
+            return result;
+        }
+        if (!chunk.isEmpty()) {
+            result.add(write(position, chunk, tagIds));
+        }
+        return result;
+    }
+
+    private BulkIngestResult.Chunk write(int firstRecord, List<GameDTO> games, Map<String, Long> tagIds) {
+        for (int i = 0; i < games.size(); i++) {
+            String title = games.get(i).getTitle();
+            if (title == null || title.isBlank()) {
+                return new BulkIngestResult.Chunk(firstRecord, games.size(), null, null,
+                        "Record " + (firstRecord + i) + " has no title");
+            }
+        }
+        RequestStatistics.extendBudget(STATEMENTS_PER_CHUNK);
+        Map<String, Long> createdTags = new HashMap<>();
+        List<List<Long>> gameTagIds = new ArrayList<>(games.size());
+        long[] ids;
+        try {
+            ids = transaction.execute(status -> {
+                gameTagIds.addAll(resolveTags(games, tagIds, createdTags));
+                long[] reserved = reserveIds("games", games.size());
+                insert(games, reserved, gameTagIds);
+                if (!createdTags.isEmpty()) {
+                    changeLog.recordAll(ChangedEntity.TAG, createdTags.values(), () -> {
+                        tagIds.putAll(createdTags);
+                        tagDictionary.refresh();
+                    });
+                }
+                changeLog.recordAll(ChangedEntity.GAME, Arrays.stream(reserved).boxed().toList(), () -> {
+                    // Hibernate does not see JDBC writes, so cached query results may now miss these games.
+                    sessionFactory.getCache().evictQueryRegions();
+                    for (int i = 0; i < games.size(); i++) {
+                        gameService.indexGame(reserved[i], games.get(i).getTitle(), gameTagIds.get(i));
+                    }
+                });
+                return reserved;
+            });
+        } catch (DataAccessException ex) {
+            return new BulkIngestResult.Chunk(firstRecord, games.size(), null, null, ex.getMostSpecificCause().getMessage());
+        }
+        return new BulkIngestResult.Chunk(firstRecord, games.size(), ids[0], ids[ids.length - 1], null);
+    }
+
+    /**
+     * Maps every game's tags to ids, inserting the names not seen before in one statement.
+     * Names match exactly, as {@code uk_tags_name} does. New tags are collected in
+     * {@code created} and only become known once the chunk commits; names another writer
+     * inserted first are selected again and known right away.
+     */
+    private List<List<Long>> resolveTags(List<GameDTO> games, Map<String, Long> known, Map<String, Long> created) {
+        Set<String> missing = new LinkedHashSet<>();
+        for (GameDTO game : games) {
+            for (String name : tagNames(game)) {
+                if (!known.containsKey(name)) {
+                    missing.add(name);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            jdbcTemplate.query(INSERT_TAGS, (RowCallbackHandler) rs -> created.put(rs.getString("name"), rs.getLong("id")),
+                    (Object) missing.toArray(String[]::new));
+            missing.removeAll(created.keySet());
+            if (!missing.isEmpty()) {
+                jdbcTemplate.query(SELECT_TAGS, (RowCallbackHandler) rs -> known.put(rs.getString("name"), rs.getLong("id")),
+                        (Object) missing.toArray(String[]::new));
+            }
+        }
+
+        List<List<Long>> resolved = new ArrayList<>(games.size());
+        for (GameDTO game : games) {
+            Set<Long> ids = new LinkedHashSet<>();
+            for (String name : tagNames(game)) {
+                Long id = known.get(name);
+                ids.add(id != null ? id : created.get(name));
+            }
+            if (game.getTags() != null) {
+                for (TagDTO tag : game.getTags()) {
+                    if (isBlank(tag.getName()) && tag.getId() != null) {
+                        ids.add(tag.getId());
+                    }
+                }
+            }
+            resolved.add(new ArrayList<>(ids));
+        }
+        return resolved;
+    }
+
+    private void insert(List<GameDTO> games, long[] ids, List<List<Long>> gameTagIds) {
+        List<Object[]> rows = new ArrayList<>(games.size());
+        List<Object[]> tags = new ArrayList<>();
+        List<Object[]> images = new ArrayList<>();
+        List<Object[]> videos = new ArrayList<>();
+        for (int i = 0; i < games.size(); i++) {
+            GameDTO game = games.get(i);
+            long id = ids[i];
+            rows.add(new Object[]{id, game.getTitle(), game.getDescription(), game.getStory(),
+                    game.getReleaseDate() == null ? null : Date.valueOf(game.getReleaseDate()), game.getPrice(),
+                    game.getImageUrl(), game.getVideoUrl(), game.getSteamLink()});
+            for (Long tagId : gameTagIds.get(i)) {
+                tags.add(new Object[]{id, tagId});
+            }
+            if (game.getAdditionalImageUrls() != null) {
+                game.getAdditionalImageUrls().forEach(url -> images.add(new Object[]{id, url}));
+            }
+            if (game.getAdditionalVideoUrls() != null) {
+                game.getAdditionalVideoUrls().forEach(url -> videos.add(new Object[]{id, url}));
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_GAME, rows, new int[]{Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+                Types.DATE, Types.NUMERIC, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR});
+        jdbcTemplate.batchUpdate(INSERT_GAME_TAG, tags, new int[]{Types.BIGINT, Types.BIGINT});
+        jdbcTemplate.batchUpdate(INSERT_IMAGE, images, new int[]{Types.BIGINT, Types.VARCHAR});
+        jdbcTemplate.batchUpdate(INSERT_VIDEO, videos, new int[]{Types.BIGINT, Types.VARCHAR});
+    }
+
+    private long[] reserveIds(String table, int count) {
+        return jdbcTemplate.queryForList(RESERVE_IDS, Long.class, table, count).stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private Map<String, Long> loadTagIds() {
+        Map<String, Long> ids = new HashMap<>();
+        for (Tag tag : tagDictionary.findAll()) {
+            ids.put(tag.getName(), tag.getId());
+        }
+        return ids;
+    }
+
+    private static List<String> tagNames(GameDTO game) {
+        if (game.getTags() == null) {
+            return List.of();
+        }
+        List<String> names = new ArrayList<>(game.getTags().size());
+        for (TagDTO tag : game.getTags()) {
+            if (!isBlank(tag.getName())) {
+                names.add(tag.getName().trim());
+            }
+        }
+        return names;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,134 @@
+package com.gamedb.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.gamedb.dto.GameDTO;
+import com.gamedb.dto.TagDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Array;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Streams the catalog as NDJSON, one game per line in id order, straight from a
+ * forward-only cursor. Only {@code fetchSize} rows are held in memory at a time.
+ */
+@Service
+public class CatalogExportService {
+    private static final String EXPORT_SQL = "SELECT g.id, g.title, g.description, g.story, g.release_date, g.price, "
+            + "g.image_url, g.video_url, g.steam_link, "
+            + "ARRAY(SELECT t.id FROM game_tags gt JOIN tags t ON t.id = gt.tag_id WHERE gt.game_id = g.id ORDER BY t.id) AS tag_ids, "
+            + "ARRAY(SELECT t.name FROM game_tags gt JOIN tags t ON t.id = gt.tag_id WHERE gt.game_id = g.id ORDER BY t.id) AS tag_names, "
+            + "ARRAY(SELECT i.image_url FROM game_additional_images i WHERE i.game_id = g.id) AS additional_images, "
+            + "ARRAY(SELECT v.video_url FROM game_additional_videos v WHERE v.game_id = g.id) AS additional_videos "
+            + "FROM games g WHERE g.id > ? ORDER BY g.id";
+    private static final int FLUSH_EVERY = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter gameWriter;
+    private final int fetchSize;
+
+    public CatalogExportService(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper,
+                                @Value("${gamedb.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.gameWriter = objectMapper.writerFor(GameDTO.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Writes every game with an id greater than {@code afterId}. Clients resume an
+     * interrupted export by passing the last id they received.
+     */
+    public void export(long afterId, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.setRootValueSeparator(null);
+        // PostgreSQL only streams with a cursor inside a transaction; otherwise it buffers the whole result.
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(EXPORT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            statement.setLong(1, afterId);
+            return statement;
+        }, new NdjsonWriter(generator)));
+        generator.flush();
+    }
+
+    private class NdjsonWriter implements RowCallbackHandler {
+        private final JsonGenerator generator;
+        private int written;
+
+        private NdjsonWriter(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            Date releaseDate = rs.getDate("release_date");
+            GameDTO game = new GameDTO(
+                    rs.getLong("id"),
+                    rs.getString("title"),
+                    rs.getString("description"),
+                    rs.getString("story"),
+                    releaseDate == null ? null : releaseDate.toLocalDate(),
+                    rs.getBigDecimal("price"),
+                    rs.getString("image_url"),
+                    rs.getString("video_url"),
+                    rs.getString("steam_link"),
+                    strings(rs.getArray("additional_images")),
+                    strings(rs.getArray("additional_videos")),
+                    tags(rs.getArray("tag_ids"), rs.getArray("tag_names")));
+            try {
+                gameWriter.writeValue(generator, game);
+                generator.writeRaw('\n');
+                if (++written % FLUSH_EVERY == 0) {
+                    generator.flush();
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        private List<String> strings(Array array) throws SQLException {
+            if (array == null) {
+                return List.of();
+            }
+            return Arrays.stream((Object[]) array.getArray()).map(String.class::cast).collect(Collectors.toList());
+        }
+
+        private Set<TagDTO> tags(Array ids, Array names) throws SQLException {
+            Set<TagDTO> tags = new LinkedHashSet<>();
+            if (ids != null && names != null) {
+                Object[] tagIds = (Object[]) ids.getArray();
+                Object[] tagNames = (Object[]) names.getArray();
+                for (int i = 0; i < tagIds.length; i++) {
+                    tags.add(new TagDTO(((Number) tagIds[i]).longValue(), (String) tagNames[i]));
+                }
+            }
+            return tags;
+        }
+    }
+}
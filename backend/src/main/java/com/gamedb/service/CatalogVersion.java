@@ -0,0 +1,37 @@
+package com.gamedb.service;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Version of the public catalog: the id and time of the latest change in
+ * {@code catalog_changes} this node has applied. It drives the ETag and Last-Modified
+ * headers of the catalog endpoints, so an unchanged page can be answered with a 304
+ * without running any query, and nodes that have applied the same changes agree on it.
+ */
+@Component
+public class CatalogVersion {
+    private volatile Stamp current = new Stamp(0, Instant.EPOCH);
+
+    /**
+     * Moves to change {@code version} once it has been applied. Writers commit their
+     * changes in id order, so a lower version than the current one is already covered.
+     */
+    public synchronized void advance(long version, Instant modifiedAt) {
+        if (version > current.version()) {
+            current = new Stamp(version, modifiedAt);
+        }
+    }
+
+    public Stamp current() {
+        return current;
+    }
+
+    public String etag(Stamp stamp) {
+        return "\"" + stamp.version() + "\"";
+    }
+
+    public record Stamp(long version, Instant modifiedAt) {
+    }
+}
@@ -1,90 +1,117 @@
 package com.gamedb.service;
 
-import com.gamedb.Entity.Game;
-import com.gamedb.Entity.User;
-import com.gamedb.Entity.UserFavoriteGame;
-import com.gamedb.Entity.UserFavoriteTag;
+import com.gamedb.dto.FavoriteChanges;
+import com.gamedb.dto.FavoriteIds;
+import com.gamedb.dto.GameSummaryDTO;
+import com.gamedb.index.Ranking;
+import com.gamedb.index.TagIndex;
 import com.gamedb.repository.*;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Service
 public class FavoriteService {
+    private static final int MAX_RECOMMENDATIONS = 500;
+
     private final UserFavoriteGameRepository userFavoriteGameRepository;
     private final UserFavoriteTagRepository userFavoriteTagRepository;
-    private final UserRepository userRepository;
-    private final GameRepository gameRepository;
-    private final TagRepository tagRepository;
+    private final TagIndex tagIndex;
+    private final GameDtoAssembler gameDtoAssembler;
+    private final PopularityService popularityService;
 
     public FavoriteService(UserFavoriteGameRepository userFavoriteGameRepository, 
                            UserFavoriteTagRepository userFavoriteTagRepository,
-                           UserRepository userRepository, 
-                           GameRepository gameRepository, 
-                           TagRepository tagRepository) {
+                           TagIndex tagIndex,
+                           GameDtoAssembler gameDtoAssembler,
+                           PopularityService popularityService) {
         this.userFavoriteGameRepository = userFavoriteGameRepository;
         this.userFavoriteTagRepository = userFavoriteTagRepository;
-        this.userRepository = userRepository;
-        this.gameRepository = gameRepository;
-        this.tagRepository = tagRepository;
+        this.tagIndex = tagIndex;
+        this.gameDtoAssembler = gameDtoAssembler;
+        this.popularityService = popularityService;
+    }
+
+    @Transactional
+    public boolean toggleFavoriteGame(Long userId, Long gameId) {
+        int change;
+        try {
+            change = userFavoriteGameRepository.toggle(userId, gameId);
+        } catch (DataIntegrityViolationException ex) {
+            throw new RuntimeException("Game not found");
+        }
+        // A toggle that changed nothing lost an insert race: the game is a favorite, and the
+        // toggle that won counted it.
+        if (change != 0) {
+            popularityService.recordFavorite(gameId, change > 0);
+        }
+        return change >= 0;
     }
 
     @Transactional
-    public boolean toggleFavoriteGame(String username, Long gameId) {
-        User user = userRepository.findByUsername(username).orElseThrow(() -> new RuntimeException("User not found"));
-        Game game = gameRepository.findById(gameId).orElseThrow(() -> new RuntimeException("Game not found"));
-        
-        boolean exists = userFavoriteGameRepository.existsByUser_IdAndGame_Id(user.getId(), gameId);
-        if (exists) {
-            userFavoriteGameRepository.deleteByUser_IdAndGame_Id(user.getId(), gameId);
-            return false;
-        } else {
-            UserFavoriteGame ufg = new UserFavoriteGame();
-            ufg.setUser(user);
-            ufg.setGame(game);
-            userFavoriteGameRepository.save(ufg);
-            return true; 
+    public boolean toggleFavoriteTag(Long userId, Long tagId) {
+        try {
+            return userFavoriteTagRepository.toggle(userId, tagId) >= 0;
+        } catch (DataIntegrityViolationException ex) {
+            throw new RuntimeException("Tag not found");
         }
     }
 
+    /**
+     * Applies a batch of favorite changes in one transaction, with one statement per
+     * kind of change. Unknown game and tag ids are ignored. Returns the favorites as
+     * they stand afterwards.
+     */
     @Transactional
-    public boolean toggleFavoriteTag(String username, Long tagId) {
-        User user = userRepository.findByUsername(username).orElseThrow(() -> new RuntimeException("User not found"));
-        boolean exists = userFavoriteTagRepository.existsByUser_IdAndTag_Id(user.getId(), tagId);
-        if (exists) {
-            userFavoriteTagRepository.deleteByUser_IdAndTag_Id(user.getId(), tagId);
-            return false;
-        } else {
-            UserFavoriteTag uft = new UserFavoriteTag();
-            uft.setUser(user);
-            uft.setTag(tagRepository.findById(tagId).orElseThrow(() -> new RuntimeException("Tag not found")));
-            userFavoriteTagRepository.save(uft);
-            return true;
+    public FavoriteIds applyChanges(Long userId, FavoriteChanges changes) {
+        if (!isEmpty(changes.getFavoriteGames())) {
+            userFavoriteGameRepository.addAll(userId, changes.getFavoriteGames());
         }
+        if (!isEmpty(changes.getUnfavoriteGames())) {
+            userFavoriteGameRepository.removeAll(userId, changes.getUnfavoriteGames());
+        }
+        if (!isEmpty(changes.getFavoriteTags())) {
+            userFavoriteTagRepository.addAll(userId, changes.getFavoriteTags());
+        }
+        if (!isEmpty(changes.getUnfavoriteTags())) {
+            userFavoriteTagRepository.removeAll(userId, changes.getUnfavoriteTags());
+        }
+        return new FavoriteIds(userFavoriteGameRepository.findGameIdsByUserId(userId),
+                userFavoriteTagRepository.findTagIdsByUserId(userId));
     }
 
-    public List<Game> getFavoriteGames(String username) {
-        User user = userRepository.findByUsername(username).orElseThrow(() -> new RuntimeException("User not found"));
-        return userFavoriteGameRepository.findByUser_Id(user.getId())
-                .stream()
-                .map(UserFavoriteGame::getGame)
-                .collect(Collectors.toList());
+    /**
+     * The user's favorite games as summaries, fetched in one statement rather than one
+     * game per favorite row.
+     */
+    @Transactional(readOnly = true)
+    public List<GameSummaryDTO> getFavoriteGames(Long userId) {
+        return gameDtoAssembler.assemble(userFavoriteGameRepository.findGameIdsByUserId(userId));
     }
 
-    public List<Game> getRecommendedGames(String username) {
-        User user = userRepository.findByUsername(username).orElseThrow(() -> new RuntimeException("User not found"));
-        List<Long> favoritTagIds = userFavoriteTagRepository.findByUser_Id(user.getId())
-                .stream()
-                .map(uft -> uft.getTag().getId())
-                .collect(Collectors.toList());
-        
-        
-        if (favoritTagIds.isEmpty()) {
-            return java.util.Collections.emptyList(); 
+    @Transactional(readOnly = true)
+    public Page<GameSummaryDTO> getRecommendedGames(Long userId, Pageable pageable) {
+        List<Long> favoriteTagIds = userFavoriteTagRepository.findTagIdsByUserId(userId);
+        if (favoriteTagIds.isEmpty() || pageable.getOffset() >= MAX_RECOMMENDATIONS) {
+            return Page.empty(pageable);
         }
-        
-        return gameRepository.findByTagIds(favoritTagIds);
+
+        Set<Long> favoriteGameIds = new HashSet<>(userFavoriteGameRepository.findGameIdsByUserId(userId));
+        int limit = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), MAX_RECOMMENDATIONS);
+        Ranking ranking = tagIndex.rankByTagWeight(favoriteTagIds, favoriteGameIds, limit);
+        int from = (int) Math.min(pageable.getOffset(), ranking.ids().size());
+        List<GameSummaryDTO> games = gameDtoAssembler.assemble(ranking.ids().subList(from, ranking.ids().size()));
+        return new PageImpl<>(games, pageable, Math.min(ranking.total(), MAX_RECOMMENDATIONS));
+    }
+
+    private static boolean isEmpty(List<Long> ids) {
+        return ids == null || ids.isEmpty();
     }
 }
\ No newline at end of file
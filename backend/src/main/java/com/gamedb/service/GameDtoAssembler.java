@@ -0,0 +1,63 @@
+package com.gamedb.service;
+
+import com.gamedb.dto.GameSummaryDTO;
+import com.gamedb.dto.TagDTO;
+import com.gamedb.index.TagDictionary;
+import com.gamedb.index.TagIndex;
+import com.gamedb.repository.GameRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Builds {@link GameSummaryDTO}s for a page of game ids with a single statement that
+ * selects only the summary columns. Tags come from the in-memory tag index.
+ */
+@Component
+public class GameDtoAssembler {
+    private final GameRepository gameRepository;
+    private final TagIndex tagIndex;
+    private final TagDictionary tagDictionary;
+
+    public GameDtoAssembler(GameRepository gameRepository, TagIndex tagIndex, TagDictionary tagDictionary) {
+        this.gameRepository = gameRepository;
+        this.tagIndex = tagIndex;
+        this.tagDictionary = tagDictionary;
+    }
+
+    @Transactional(readOnly = true)
+    public List<GameSummaryDTO> assemble(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, GameSummaryDTO> games = gameRepository.findSummariesByIdIn(ids).stream()
+                .collect(Collectors.toMap(GameSummaryDTO::getId, Function.identity(), (first, second) -> first));
+
+        List<GameSummaryDTO> summaries = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            GameSummaryDTO game = games.get(id);
+            if (game != null) {
+                game.setTags(tagsOf(id));
+                summaries.add(game);
+            }
+        }
+        return summaries;
+    }
+
+    private Set<TagDTO> tagsOf(Long gameId) {
+        List<TagDTO> tags = new ArrayList<>();
+        for (long tagId : tagIndex.tagsOf(gameId)) {
+            tagDictionary.findById(tagId).ifPresent(tag -> tags.add(new TagDTO(tag.getId(), tag.getName())));
+        }
+        tags.sort(Comparator.comparing(TagDTO::getName));
+        return new LinkedHashSet<>(tags);
+    }
+}
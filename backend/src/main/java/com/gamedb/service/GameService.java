@@ -2,59 +2,332 @@ package com.gamedb.service;
 
 import com.gamedb.Entity.Game;
 import com.gamedb.Entity.Tag;
+import com.gamedb.changes.CatalogChangeLog;
+import com.gamedb.changes.ChangedEntity;
+import com.gamedb.dto.Cursor;
+import com.gamedb.dto.CursorSlice;
+import com.gamedb.dto.FacetedPage;
+import com.gamedb.dto.GameSummaryDTO;
+import com.gamedb.dto.TagFacet;
+import com.gamedb.index.SimilarityIndex;
+import com.gamedb.index.TagDictionary;
+import com.gamedb.index.TagFilter;
+import com.gamedb.index.TagIndex;
+import com.gamedb.index.TitleIndex;
 import com.gamedb.repository.GameRepository;
-import com.gamedb.repository.TagRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
 public class GameService {
+    private static final long UNKNOWN_TAG = -1L;
+
     private final GameRepository gameRepository;
-    private final TagRepository tagRepository;
+    private final TitleIndex titleIndex;
+    private final TagIndex tagIndex;
+    private final SimilarityIndex similarityIndex;
+    private final TagDictionary tagDictionary;
+    private final GameDtoAssembler gameDtoAssembler;
+    private final SearchFacets searchFacets;
+    private final CatalogChangeLog changeLog;
+    private final Timer searchTimer;
+    private final Timer scrollTimer;
 
-    public GameService(GameRepository gameRepository, TagRepository tagRepository) {
+    public GameService(GameRepository gameRepository, TitleIndex titleIndex, TagIndex tagIndex,
+                       SimilarityIndex similarityIndex, TagDictionary tagDictionary,
+                       GameDtoAssembler gameDtoAssembler, SearchFacets searchFacets,
+                       CatalogChangeLog changeLog, MeterRegistry meterRegistry) {
         this.gameRepository = gameRepository;
-        this.tagRepository = tagRepository;
+        this.titleIndex = titleIndex;
+        this.tagIndex = tagIndex;
+        this.similarityIndex = similarityIndex;
+        this.tagDictionary = tagDictionary;
+        this.gameDtoAssembler = gameDtoAssembler;
+        this.searchFacets = searchFacets;
+        this.changeLog = changeLog;
+        this.searchTimer = Timer.builder("games.search.duration").tag("mode", "page")
+                .publishPercentiles(0.5, 0.95, 0.99).register(meterRegistry);
+        this.scrollTimer = Timer.builder("games.search.duration").tag("mode", "scroll")
+                .publishPercentiles(0.5, 0.95, 0.99).register(meterRegistry);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<GameSummaryDTO> listAll(Pageable pageable) {
+        Slice<Long> ids = gameRepository.findIdSlice(pageable);
+        return fetchPage(ids.getContent(), pageable, tagIndex.gameCount());
     }
 
-    public Page<Game> listAll(Pageable pageable) {
-        return gameRepository.findAll(pageable);
+    @Transactional(readOnly = true)
+    public Page<GameSummaryDTO> search(String title, TagFilter filter, Pageable pageable) {
+        return searchTimer.record(() -> findPage(title, filter, pageable, 0));
     }
 
-    public Page<Game> search(String title, Long tagId, Pageable pageable) {
-        if (title != null && tagId != null) {
-            return gameRepository.findByTitleAndTagId(title, tagId, pageable);
-        } else if (title != null) {
-            return gameRepository.findByTitleContainingIgnoreCase(title, pageable);
-        } else if (tagId != null) {
-            return gameRepository.findByTagId(tagId, pageable);
-        } else {
-            return gameRepository.findAll(pageable);
+    /**
+     * {@link #search} with the {@code facets} most common tags among all the results and
+     * how many results carry each. Counts come from the tag index and are cached per query.
+     */
+    @Transactional(readOnly = true)
+    public FacetedPage<GameSummaryDTO> search(String title, TagFilter filter, Pageable pageable, int facets) {
+        return (FacetedPage<GameSummaryDTO>) searchTimer.record(() -> findPage(title, filter, pageable, facets));
+    }
+
+    private Page<GameSummaryDTO> findPage(String title, TagFilter filter, Pageable pageable, int facets) {
+        boolean hasTitle = title != null && !title.isBlank();
+        if (!hasTitle && filter.isEmpty()) {
+            Slice<Long> ids = gameRepository.findIdSlice(pageable);
+            return fetchPage(ids.getContent(), pageable, tagIndex.gameCount(), facets(null, filter, facets, () -> null));
+        }
+        RoaringBitmap tagged = filter.isEmpty() ? null : matchTags(filter);
+        if (!hasTitle) {
+            int from = (int) Math.min(pageable.getOffset(), tagged.getCardinality());
+            int to = Math.min(from + pageable.getPageSize(), tagged.getCardinality());
+            List<Long> pageIds = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                pageIds.add((long) tagged.select(i));
+            }
+            return fetchPage(pageIds, pageable, tagged.getCardinality(), facets(null, filter, facets, () -> tagged));
         }
+
+        List<TitleIndex.Match> matches = matchTitle(title, tagged);
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        int to = Math.min(from + pageable.getPageSize(), matches.size());
+        return fetchPage(idsOf(matches.subList(from, to)), pageable, matches.size(),
+                facets(title, filter, facets, () -> bitmapOf(matches)));
     }
 
+    /**
+     * Keyset variant of {@link #search}: returns the {@code size} games following
+     * {@code after} in the search order, without offsets or count queries. Totals are
+     * only filled in when asked for and come from the in-memory indexes.
+     */
+    @Transactional(readOnly = true)
+    public CursorSlice<GameSummaryDTO> scroll(String title, TagFilter filter, Cursor after, int size, boolean withTotal) {
+        return scrollTimer.record(() -> findSlice(title, filter, after, size, withTotal));
+    }
+
+    private CursorSlice<GameSummaryDTO> findSlice(String title, TagFilter filter, Cursor after, int size, boolean withTotal) {
+        boolean hasTitle = title != null && !title.isBlank();
+        if (!hasTitle && filter.isEmpty()) {
+            Slice<Long> ids = gameRepository.findIdSliceAfter(after == null ? 0L : after.id(), PageRequest.of(0, size));
+            return new CursorSlice<>(gameDtoAssembler.assemble(ids.getContent()), size, ids.hasNext(),
+                    lastIdCursor(ids.getContent()), withTotal ? (long) tagIndex.gameCount() : null);
+        }
+        RoaringBitmap tagged = filter.isEmpty() ? null : matchTags(filter);
+        if (!hasTitle) {
+            PeekableIntIterator iterator = tagged.getIntIterator();
+            if (after != null) {
+                iterator.advanceIfNeeded(TagIndex.toInt(after.id()) + 1);
+            }
+            List<Long> ids = new ArrayList<>(size);
+            while (iterator.hasNext() && ids.size() < size) {
+                ids.add((long) iterator.next());
+            }
+            return new CursorSlice<>(gameDtoAssembler.assemble(ids), size, iterator.hasNext(),
+                    lastIdCursor(ids), withTotal ? (long) tagged.getCardinality() : null);
+        }
+
+        List<TitleIndex.Match> matches = matchTitle(title, tagged);
+        int from = 0;
+        if (after != null) {
+            int position = Collections.binarySearch(matches, new TitleIndex.Match(after.id(), after.key()), TitleIndex.Match.RANKING);
+            from = position >= 0 ? position + 1 : -position - 1;
+        }
+        int to = Math.min(from + size, matches.size());
+        List<TitleIndex.Match> page = matches.subList(from, to);
+        Cursor next = page.isEmpty() ? null : new Cursor(page.get(page.size() - 1).score(), page.get(page.size() - 1).id());
+        return new CursorSlice<>(gameDtoAssembler.assemble(idsOf(page)), size, to < matches.size(),
+                next, withTotal ? (long) matches.size() : null);
+    }
+
+    @Transactional(readOnly = true)
     public Optional<Game> findById(Long id) {
         return gameRepository.findById(id);
     }
 
+    /**
+     * Whether game {@code id} exists, answered from the tag index without a query.
+     */
+    public boolean exists(Long id) {
+        return tagIndex.contains(id);
+    }
+
+    /**
+     * Games whose tags overlap the most with {@code id}'s, by Jaccard similarity, or
+     * empty when the game does not exist.
+     */
+    @Transactional(readOnly = true)
+    public Optional<List<GameSummaryDTO>> findSimilar(Long id, int limit) {
+        if (!tagIndex.contains(id)) {
+            return Optional.empty();
+        }
+        return Optional.of(gameDtoAssembler.assemble(similarityIndex.similar(id, limit)));
+    }
+
+    @Transactional
     public Game save(Game game) {
-        return gameRepository.save(game);
+        Game saved = gameRepository.save(game);
+        List<Long> tagIds = saved.getTags().stream().map(Tag::getId).collect(Collectors.toList());
+        changeLog.record(ChangedEntity.GAME, saved.getId(), () -> indexGame(saved.getId(), saved.getTitle(), tagIds));
+        return saved;
     }
 
+    /**
+     * Replaces the fields and tags of game {@code id} with those of {@code changes}, or
+     * returns empty when the game does not exist.
+     */
+    @Transactional
+    public Optional<Game> update(Long id, Game changes) {
+        return gameRepository.findById(id).map(game -> {
+            game.setTitle(changes.getTitle());
+            game.setDescription(changes.getDescription());
+            game.setStory(changes.getStory());
+            game.setReleaseDate(changes.getReleaseDate());
+            game.setPrice(changes.getPrice());
+            game.setImageUrl(changes.getImageUrl());
+            game.setVideoUrl(changes.getVideoUrl());
+            game.setSteamLink(changes.getSteamLink());
+            game.setAdditionalImageUrls(changes.getAdditionalImageUrls());
+            game.setAdditionalVideoUrls(changes.getAdditionalVideoUrls());
+            game.getTags().clear();
+            for (Tag tag : changes.getTags()) {
+                game.getTags().add(tagDictionary.findById(tag.getId())
+                        .orElseThrow(() -> new RuntimeException("Tag not found")));
+            }
+            return save(game);
+        });
+    }
+
+    /**
+     * Brings the in-memory indexes in line with a game that has been committed,
+     * including games written outside of JPA. Callers advance the catalog version.
+     */
+    public void indexGame(Long id, String title, Collection<Long> tagIds) {
+        titleIndex.put(id, title);
+        tagIndex.setTags(id, tagIds);
+        similarityIndex.update(id, tagIndex.tagsOf(id));
+    }
+
+    @Transactional
     public Game addTag(Long gameId, Long tagId) {
         Game game = gameRepository.findById(gameId).orElseThrow(() -> new RuntimeException("Game not found"));
-        Tag tag = tagRepository.findById(tagId).orElseThrow(() -> new RuntimeException("Tag not found"));
-        game.getTags().add(tag);
-        return gameRepository.save(game);
+        Tag tag = tagDictionary.findById(tagId).orElseThrow(() -> new RuntimeException("Tag not found"));
+        if (game.getTags().stream().noneMatch(existing -> existing.getId().equals(tagId))) {
+            game.getTags().add(tag);
+        }
+        Game saved = gameRepository.save(game);
+        changeLog.record(ChangedEntity.GAME, gameId, () -> {
+            tagIndex.addTag(gameId, tagId);
+            similarityIndex.update(gameId, tagIndex.tagsOf(gameId));
+        });
+        return saved;
     }
 
+    @Transactional
     public Game removeTag(Long gameId, Long tagId) {
         Game game = gameRepository.findById(gameId).orElseThrow(() -> new RuntimeException("Game not found"));
-        Tag tag = tagRepository.findById(tagId).orElseThrow(() -> new RuntimeException("Tag not found"));
-        game.getTags().remove(tag);
-        return gameRepository.save(game);
+        if (tagDictionary.findById(tagId).isEmpty()) {
+            throw new RuntimeException("Tag not found");
+        }
+        game.getTags().removeIf(tag -> tag.getId().equals(tagId));
+        Game saved = gameRepository.save(game);
+        changeLog.record(ChangedEntity.GAME, gameId, () -> {
+            tagIndex.removeTag(gameId, tagId);
+            similarityIndex.update(gameId, tagIndex.tagsOf(gameId));
+        });
+        return saved;
+    }
+
+    private List<TitleIndex.Match> matchTitle(String title, RoaringBitmap tagged) {
+        List<TitleIndex.Match> matches = titleIndex.search(title);
+        if (tagged == null) {
+            return matches;
+        }
+        return matches.stream()
+                .filter(match -> tagged.contains(TagIndex.toInt(match.id())))
+                .collect(Collectors.toList());
+    }
+
+    private static List<Long> idsOf(List<TitleIndex.Match> matches) {
+        List<Long> ids = new ArrayList<>(matches.size());
+        for (TitleIndex.Match match : matches) {
+            ids.add(match.id());
+        }
+        return ids;
+    }
+
+    private static Cursor lastIdCursor(List<Long> ids) {
+        return ids.isEmpty() ? null : Cursor.ofId(ids.get(ids.size() - 1));
+    }
+
+    private RoaringBitmap matchTags(TagFilter filter) {
+        return tagIndex.match(
+                resolveTagIds(filter.getAllOf()),
+                resolveTagIds(filter.getAnyOf()),
+                resolveTagIds(filter.getNoneOf()));
+    }
+
+    // Tags are referenced by name or by id, names first so a tag named "2048" is found by its name.
+    // Names that do not exist resolve to a tag with no games.
+    private List<Long> resolveTagIds(List<String> tokens) {
+        List<Long> ids = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            ids.add(tagDictionary.findByName(token).map(Tag::getId).orElseGet(() -> parseTagId(token)));
+        }
+        return ids;
+    }
+
+    private static long parseTagId(String token) {
+        if (token.isEmpty() || !token.chars().allMatch(Character::isDigit)) {
+            return UNKNOWN_TAG;
+        }
+        try {
+            return Long.parseLong(token);
+        } catch (NumberFormatException ex) {
+            throw new InvalidTagException("Invalid tag id: " + token);
+        }
+    }
+
+    private Page<GameSummaryDTO> fetchPage(List<Long> pageIds, Pageable pageable, long total) {
+        return new PageImpl<>(gameDtoAssembler.assemble(pageIds), pageable, total);
+    }
+
+    private Page<GameSummaryDTO> fetchPage(List<Long> pageIds, Pageable pageable, long total, List<TagFacet> facets) {
+        if (facets == null) {
+            return fetchPage(pageIds, pageable, total);
+        }
+        return new FacetedPage<>(gameDtoAssembler.assemble(pageIds), pageable, total, facets);
+    }
+
+    private List<TagFacet> facets(String title, TagFilter filter, int limit, Supplier<RoaringBitmap> matching) {
+        if (limit <= 0) {
+            return null;
+        }
+        return searchFacets.get(title, resolveTagIds(filter.getAllOf()), resolveTagIds(filter.getAnyOf()),
+                resolveTagIds(filter.getNoneOf()), limit, matching);
+    }
+
+    private static RoaringBitmap bitmapOf(List<TitleIndex.Match> matches) {
+        RoaringBitmap games = new RoaringBitmap();
+        for (TitleIndex.Match match : matches) {
+            games.add(TagIndex.toInt(match.id()));
+        }
+        return games;
     }
 }
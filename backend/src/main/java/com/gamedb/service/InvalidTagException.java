@@ -0,0 +1,8 @@
+package com.gamedb.service;
+
+public class InvalidTagException extends RuntimeException {
+
+    public InvalidTagException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,177 @@
+package com.gamedb.service;
+
+import com.gamedb.config.PopularityProperties;
+import com.gamedb.dto.GameSummaryDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Favorite and view counts per game, kept in striped in-memory counters so the request
+ * paths only ever add to a {@link LongAdder}. A background thread flushes the deltas
+ * into {@code game_popularity} in one batch, where each game's score decays with the
+ * configured half-life, and then reloads the trending games from there. Every node
+ * adds its own deltas, so the table and the trending list cover all of them.
+ */
+@Service
+@EnableConfigurationProperties(PopularityProperties.class)
+public class PopularityService implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(PopularityService.class);
+
+    // The stored score decayed to the new row's scored_at, plus the new row's score.
+    private static final String DECAYED = "(p.score * power(0.5, extract(epoch FROM EXCLUDED.scored_at - p.scored_at) / ?)"
+            + " + EXCLUDED.score)";
+    private static final String UPSERT = "INSERT INTO game_popularity AS p "
+            + "(game_id, favorites, views, score, scored_at, rank_key) VALUES (?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (game_id) DO UPDATE SET "
+            + "favorites = p.favorites + EXCLUDED.favorites, "
+            + "views = p.views + EXCLUDED.views, "
+            + "score = " + DECAYED + ", "
+            + "scored_at = EXCLUDED.scored_at, "
+            + "rank_key = CASE WHEN " + DECAYED + " > 0 THEN ln(" + DECAYED + ") + ? END";
+    private static final String TRENDING = "SELECT game_id FROM game_popularity "
+            + "WHERE rank_key IS NOT NULL ORDER BY rank_key DESC LIMIT ?";
+
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final GameDtoAssembler gameDtoAssembler;
+    private final PopularityProperties properties;
+    private final ScheduledExecutorService flusher;
+    private volatile List<Long> trending = List.of();
+
+    public PopularityService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                             GameDtoAssembler gameDtoAssembler, PopularityProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.gameDtoAssembler = gameDtoAssembler;
+        this.properties = properties;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "popularity-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long interval = properties.getFlushInterval().toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void recordView(Long gameId) {
+        counter(gameId).views.increment();
+    }
+
+    public void recordFavorite(Long gameId, boolean favorited) {
+        if (favorited) {
+            counter(gameId).favorites.increment();
+        } else {
+            counter(gameId).favorites.decrement();
+        }
+    }
+
+    /**
+     * The games with the highest decayed score as of the last flush, best first.
+     */
+    @Transactional(readOnly = true)
+    public List<GameSummaryDTO> getTrending(int limit) {
+        List<Long> ids = trending;
+        return gameDtoAssembler.assemble(ids.subList(0, Math.min(limit, ids.size())));
+    }
+
+    /**
+     * Writes the counted deltas and reloads the trending list. Counters that saw nothing
+     * since the previous flush are dropped; an increment racing with that removal can be
+     * lost, which only ever affects games nobody was looking at.
+     */
+    public void flush() {
+        Instant now = Instant.now();
+        List<Long> gameIds = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        for (Map.Entry<Long, Counter> entry : counters.entrySet()) {
+            Counter counter = entry.getValue();
+            long favorites = counter.favorites.sumThenReset();
+            long views = counter.views.sumThenReset();
+            if (favorites == 0 && views == 0) {
+                counters.remove(entry.getKey(), counter);
+                continue;
+            }
+            gameIds.add(entry.getKey());
+            rows.add(row(entry.getKey(), favorites, views, now));
+        }
+        try {
+            trending = transaction.execute(status -> {
+                if (!rows.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPSERT, rows, new int[]{Types.BIGINT, Types.BIGINT, Types.BIGINT,
+                            Types.DOUBLE, Types.TIMESTAMP, Types.DOUBLE, Types.DOUBLE, Types.DOUBLE, Types.DOUBLE,
+                            Types.DOUBLE});
+                }
+                return List.copyOf(jdbcTemplate.queryForList(TRENDING, Long.class, properties.getTrendingSize()));
+            });
+        } catch (RuntimeException ex) {
+            // Put the deltas back so the next flush retries them.
+            for (int i = 0; i < rows.size(); i++) {
+                Counter counter = counter(gameIds.get(i));
+                counter.favorites.add((long) rows.get(i)[1]);
+                counter.views.add((long) rows.get(i)[2]);
+            }
+            throw ex;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        flusher.shutdownNow();
+        flushQuietly();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException ex) {
+            log.warn("Could not flush popularity counters", ex);
+        }
+    }
+
+    private Counter counter(Long gameId) {
+        Counter counter = counters.get(gameId);
+        return counter != null ? counter : counters.computeIfAbsent(gameId, id -> new Counter());
+    }
+
+    private Object[] row(Long gameId, long favorites, long views, Instant now) {
+        double score = favorites * properties.getFavoriteWeight() + views * properties.getViewWeight();
+        double halfLife = properties.getHalfLife().toMillis() / 1000.0;
+        // ln(score at t) = ln(score) - (t - now) * ln(2) / halfLife, so ranking by this key is
+        // ranking by the score at any common instant t.
+        double rankOffset = now.toEpochMilli() / 1000.0 * Math.log(2) / halfLife;
+        Double rankKey = score > 0 ? Math.log(score) + rankOffset : null;
+        return new Object[]{gameId, favorites, views, score, Timestamp.from(now), rankKey,
+                halfLife, halfLife, halfLife, rankOffset};
+    }
+
+    private static final class Counter {
+        private final LongAdder favorites = new LongAdder();
+        private final LongAdder views = new LongAdder();
+    }
+}
@@ -0,0 +1,76 @@
+package com.gamedb.service;
+
+import com.gamedb.Entity.Tag;
+import com.gamedb.dto.TagFacet;
+import com.gamedb.index.TagCount;
+import com.gamedb.index.TagDictionary;
+import com.gamedb.index.TagIndex;
+import com.gamedb.index.TitleIndex;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Tag counts over search results, cached per normalized query. Keys carry the catalog
+ * version, so any catalog write makes earlier counts unreachable; the short TTL only
+ * bounds how long they take up space.
+ */
+@Component
+public class SearchFacets {
+    private final TagIndex tagIndex;
+    private final TagDictionary tagDictionary;
+    private final CatalogVersion catalogVersion;
+    private final Cache<Key, List<TagFacet>> facets;
+
+    public SearchFacets(TagIndex tagIndex, TagDictionary tagDictionary, CatalogVersion catalogVersion,
+                        @Value("${gamedb.search.facets.max-size:10000}") long maxSize,
+                        @Value("${gamedb.search.facets.ttl:30s}") Duration ttl,
+                        MeterRegistry meterRegistry) {
+        this.tagIndex = tagIndex;
+        this.tagDictionary = tagDictionary;
+        this.catalogVersion = catalogVersion;
+        this.facets = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, facets, "searchFacets");
+    }
+
+    /**
+     * The {@code limit} most common tags among the games matching {@code title} and the
+     * resolved tag ids. {@code matching} supplies those games, or null for all games, and
+     * is only called on a cache miss.
+     */
+    public List<TagFacet> get(String title, Collection<Long> allOf, Collection<Long> anyOf, Collection<Long> noneOf,
+                              int limit, Supplier<RoaringBitmap> matching) {
+        Key key = new Key(catalogVersion.current().version(), TitleIndex.normalize(title),
+                sorted(allOf), sorted(anyOf), sorted(noneOf), limit);
+        return facets.get(key, k -> {
+            List<TagCount> top = tagIndex.topTags(matching.get(), limit);
+            List<TagFacet> result = new ArrayList<>(top.size());
+            for (TagCount count : top) {
+                String name = tagDictionary.findById(count.tagId()).map(Tag::getName).orElse(null);
+                result.add(new TagFacet(count.tagId(), name, count.count()));
+            }
+            return List.copyOf(result);
+        });
+    }
+
+    private static List<Long> sorted(Collection<Long> ids) {
+        return ids.stream().distinct().sorted().toList();
+    }
+
+    private record Key(long version, String title, List<Long> allOf, List<Long> anyOf, List<Long> noneOf, int limit) {
+    }
+}
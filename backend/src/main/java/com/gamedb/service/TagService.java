@@ -1,8 +1,15 @@
 package com.gamedb.service;
 
 import com.gamedb.Entity.Tag;
+import com.gamedb.changes.CatalogChangeLog;
+import com.gamedb.changes.ChangedEntity;
+import com.gamedb.index.SimilarityIndex;
+import com.gamedb.index.TagDictionary;
+import com.gamedb.index.TagIndex;
 import com.gamedb.repository.TagRepository;
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -10,28 +17,70 @@ import java.util.Optional;
 @Service
 public class TagService {
     private final TagRepository tagRepository;
+    private final TagIndex tagIndex;
+    private final SimilarityIndex similarityIndex;
+    private final TagDictionary tagDictionary;
+    private final CatalogChangeLog changeLog;
 
-    public TagService(TagRepository tagRepository) {
+    public TagService(TagRepository tagRepository, TagIndex tagIndex, SimilarityIndex similarityIndex,
+                      TagDictionary tagDictionary, CatalogChangeLog changeLog) {
         this.tagRepository = tagRepository;
+        this.tagIndex = tagIndex;
+        this.similarityIndex = similarityIndex;
+        this.tagDictionary = tagDictionary;
+        this.changeLog = changeLog;
     }
 
+    @Transactional
     public Tag save(Tag tag) {
-        return tagRepository.save(tag);
+        Tag saved = tagRepository.save(tag);
+        changeLog.record(ChangedEntity.TAG, saved.getId(), tagDictionary::refresh);
+        return saved;
     }
 
     public Optional<Tag> findById(Long id) {
-        return tagRepository.findById(id);
+        return tagDictionary.findById(id);
+    }
+
+    /**
+     * The dictionary's copy of a tag. Linking a game to a tag only needs its id, so the
+     * copy can be added to a game's tags as is.
+     */
+    public Tag getTag(Long id) {
+        return tagDictionary.findById(id).orElseThrow(() -> new RuntimeException("Tag not found"));
     }
 
     public List<Tag> findAll() {
-        return tagRepository.findAll();
+        return tagDictionary.findAll();
     }
 
-    public List<Tag> findByNameStartingWith(String prefix) {
-        return tagRepository.findByNameStartingWithIgnoreCase(prefix);
+    public List<Tag> findByNameStartingWith(String prefix, int limit) {
+        return tagDictionary.complete(prefix, limit);
     }
 
+    @Transactional
     public void deleteById(Long id) {
         tagRepository.deleteById(id);
+        changeLog.record(ChangedEntity.TAG, id, () -> {
+            unindex(id);
+            tagDictionary.refresh();
+        });
+    }
+
+    /**
+     * Brings the dictionary and the indexes in line with a tag as committed, including
+     * tags changed on another node.
+     */
+    public void reindex(Long id) {
+        tagDictionary.refresh();
+        if (tagDictionary.findById(id).isEmpty()) {
+            unindex(id);
+        }
+    }
+
+    private void unindex(Long id) {
+        RoaringBitmap tagged = tagIndex.match(List.of(id), List.of(), List.of());
+        tagIndex.dropTag(id);
+        tagged.forEach((int gameId) -> similarityIndex.update((long) gameId, tagIndex.tagsOf((long) gameId)));
     }
 }
@@ -0,0 +1,56 @@
+-- Schema as previously generated by Hibernate. Databases created that way are
+-- baselined at this version and start from V2.
+
+CREATE TABLE users (
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    role     VARCHAR(255),
+    CONSTRAINT uk_users_username UNIQUE (username)
+);
+
+CREATE TABLE tags (
+    id   BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    CONSTRAINT uk_tags_name UNIQUE (name)
+);
+
+CREATE TABLE games (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    title        VARCHAR(255) NOT NULL,
+    description  TEXT,
+    story        TEXT,
+    release_date DATE,
+    price        NUMERIC(19, 2),
+    image_url    VARCHAR(255),
+    video_url    VARCHAR(255),
+    steam_link   VARCHAR(255)
+);
+
+CREATE TABLE game_tags (
+    game_id BIGINT NOT NULL REFERENCES games (id),
+    tag_id  BIGINT NOT NULL REFERENCES tags (id),
+    PRIMARY KEY (game_id, tag_id)
+);
+
+CREATE TABLE game_additional_images (
+    game_id   BIGINT NOT NULL REFERENCES games (id),
+    image_url VARCHAR(255)
+);
+
+CREATE TABLE game_additional_videos (
+    game_id   BIGINT NOT NULL REFERENCES games (id),
+    video_url VARCHAR(255)
+);
+
+CREATE TABLE user_favorite_games (
+    id      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES users (id),
+    game_id BIGINT NOT NULL REFERENCES games (id)
+);
+
+CREATE TABLE user_favorite_tags (
+    id      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES users (id),
+    tag_id  BIGINT NOT NULL REFERENCES tags (id)
+);
@@ -0,0 +1,23 @@
+-- Favorites are toggled with ON CONFLICT, which needs a unique key per user and target.
+-- Leading with user_id, the same keys serve every per-user favorites lookup. They are
+-- recreated in case Hibernate already added them to an existing database.
+DELETE FROM user_favorite_games a USING user_favorite_games b
+WHERE a.user_id = b.user_id AND a.game_id = b.game_id AND a.id > b.id;
+ALTER TABLE user_favorite_games DROP CONSTRAINT IF EXISTS uk_user_favorite_games_user_game;
+ALTER TABLE user_favorite_games ADD CONSTRAINT uk_user_favorite_games_user_game UNIQUE (user_id, game_id);
+
+DELETE FROM user_favorite_tags a USING user_favorite_tags b
+WHERE a.user_id = b.user_id AND a.tag_id = b.tag_id AND a.id > b.id;
+ALTER TABLE user_favorite_tags DROP CONSTRAINT IF EXISTS uk_user_favorite_tags_user_tag;
+ALTER TABLE user_favorite_tags ADD CONSTRAINT uk_user_favorite_tags_user_tag UNIQUE (user_id, tag_id);
+
+-- Reverse side of the foreign keys, used when games and tags are deleted.
+CREATE INDEX IF NOT EXISTS idx_user_favorite_games_game ON user_favorite_games (game_id);
+CREATE INDEX IF NOT EXISTS idx_user_favorite_tags_tag ON user_favorite_tags (tag_id);
+
+-- Games by tag. The primary key only covers lookups by game_id.
+CREATE INDEX IF NOT EXISTS idx_game_tags_tag_game ON game_tags (tag_id, game_id);
+
+-- Media of a page of games, fetched by game_id IN (...).
+CREATE INDEX IF NOT EXISTS idx_game_additional_images_game ON game_additional_images (game_id);
+CREATE INDEX IF NOT EXISTS idx_game_additional_videos_game ON game_additional_videos (game_id);
@@ -0,0 +1,14 @@
+-- Running popularity per game, upserted in batches from the in-memory counters.
+-- score is a time-decayed sum of weighted events as of scored_at. rank_key is
+-- ln(score) + scored_at / half-life * ln(2), which orders games by their decayed score
+-- at any later instant without rewriting untouched rows; it is null while score <= 0.
+CREATE TABLE game_popularity (
+    game_id   BIGINT PRIMARY KEY REFERENCES games (id),
+    favorites BIGINT           NOT NULL,
+    views     BIGINT           NOT NULL,
+    score     DOUBLE PRECISION NOT NULL,
+    scored_at TIMESTAMPTZ      NOT NULL,
+    rank_key  DOUBLE PRECISION
+);
+
+CREATE INDEX idx_game_popularity_rank_key ON game_popularity (rank_key) WHERE rank_key IS NOT NULL;
@@ -0,0 +1,25 @@
+-- One row per committed catalog mutation, written in the mutating transaction. Other
+-- nodes read the rows after the last one they applied to evict exactly what changed.
+-- created_at is the insert time rather than the transaction start, so a row's age
+-- bounds how long an earlier id can still be waiting to commit.
+CREATE TABLE catalog_changes (
+    id         BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    entity     VARCHAR(16) NOT NULL,
+    entity_id  BIGINT      NOT NULL,
+    origin     VARCHAR(36) NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT clock_timestamp()
+);
+
+CREATE INDEX idx_catalog_changes_created_at ON catalog_changes (created_at);
+
+-- Wakes up listening nodes when the inserting transaction commits. The payload is empty;
+-- listeners read the table, so a missed notification only delays them until their next poll.
+CREATE FUNCTION notify_catalog_changes() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    PERFORM pg_notify('catalog_changes', '');
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER catalog_changes_notify AFTER INSERT ON catalog_changes
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_catalog_changes();
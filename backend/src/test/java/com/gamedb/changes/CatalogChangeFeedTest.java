@@ -0,0 +1,116 @@
+package com.gamedb.changes;
+
+import com.gamedb.support.ApplicationProcess;
+import com.gamedb.support.IntegrationTest;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Writes on one node and reads on another: this test's application is one node and
+ * {@link ApplicationProcess} runs the other.
+ */
+class CatalogChangeFeedTest extends IntegrationTest {
+    private static final Duration PROPAGATION_TIMEOUT = Duration.ofSeconds(10);
+
+    private static ApplicationProcess other;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void startOtherNode(@Value("${spring.datasource.url}") String database) throws Exception {
+        other = ApplicationProcess.start("catalog-change-feed-node", database);
+    }
+
+    @AfterAll
+    static void stopOtherNode() throws Exception {
+        if (other != null) {
+            other.close();
+        }
+    }
+
+    @Test
+    void propagatesGameWritesBothWays() throws Exception {
+        long tagId = createTag("Feed-Games");
+        long gameId = createGame("Feed Game One");
+        mvc.perform(post("/api/admin/games/" + gameId + "/tags/" + tagId).header(HttpHeaders.AUTHORIZATION, bearer("admin")))
+                .andExpect(status().isOk());
+
+        awaitTrue(() -> other.get("/api/games/search?title=feed+game+one", null).body().contains("\"Feed Game One\""));
+        awaitTrue(() -> other.get("/api/games/search?tags=Feed-Games", null).body().contains("\"Feed Game One\""));
+
+        assertThat(other.delete("/api/admin/games/" + gameId + "/tags/" + tagId, bearer("admin")).statusCode()).isEqualTo(200);
+        awaitTrue(() -> !search("Feed-Games").contains("\"Feed Game One\""));
+    }
+
+    @Test
+    void propagatesTagDeletes() throws Exception {
+        long tagId = createTag("Feed-Deleted");
+        awaitTrue(() -> other.get("/api/games/tags/search?prefix=feed-del", null).body().contains("\"Feed-Deleted\""));
+
+        assertThat(other.delete("/api/admin/tags/" + tagId, bearer("admin")).statusCode()).isEqualTo(200);
+        awaitTrue(() -> !mvc.perform(get("/api/games/tags/search").param("prefix", "feed-del")).andReturn()
+                .getResponse().getContentAsString().contains("\"Feed-Deleted\""));
+    }
+
+    @Test
+    void agreesOnTheCatalogVersion() throws Exception {
+        createTag("Feed-Version");
+        String etag = mvc.perform(get("/api/games")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        awaitTrue(() -> etag.equals(other.get("/api/games", null).headers().firstValue(HttpHeaders.ETAG).orElse(null)));
+    }
+
+    @Test
+    void skipsChangesItCannotApply() throws Exception {
+        jdbcTemplate.update("INSERT INTO catalog_changes (entity, entity_id, origin) VALUES ('UNKNOWN', 1, 'test')");
+        createTag("Feed-After-Unknown");
+
+        awaitTrue(() -> other.get("/api/games/tags/search?prefix=feed-after", null).body().contains("\"Feed-After-Unknown\""));
+    }
+
+    private long createTag(String name) throws Exception {
+        String body = mvc.perform(post("/api/admin/tags").header(HttpHeaders.AUTHORIZATION, bearer("admin"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"" + name + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return ((Number) JsonPath.read(body, "$.id")).longValue();
+    }
+
+    private long createGame(String title) throws Exception {
+        String body = mvc.perform(post("/api/admin/games").header(HttpHeaders.AUTHORIZATION, bearer("admin"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"" + title + "\",\"tags\":[]}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return ((Number) JsonPath.read(body, "$.id")).longValue();
+    }
+
+    private String search(String tag) throws Exception {
+        return mvc.perform(get("/api/games/search").param("tags", tag)).andReturn().getResponse().getContentAsString();
+    }
+
+    private static void awaitTrue(Callable<Boolean> condition) throws Exception {
+        long deadline = System.nanoTime() + PROPAGATION_TIMEOUT.toNanos();
+        while (!condition.call()) {
+            assertThat(System.nanoTime()).as("condition met within " + PROPAGATION_TIMEOUT).isLessThan(deadline);
+            Thread.sleep(100);
+        }
+    }
+}
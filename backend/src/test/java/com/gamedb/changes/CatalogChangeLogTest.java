@@ -0,0 +1,89 @@
+package com.gamedb.changes;
+
+import com.gamedb.service.CatalogVersion;
+import com.gamedb.support.IntegrationTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogChangeLogTest extends IntegrationTest {
+    @Autowired
+    private CatalogChangeLog changeLog;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private TransactionTemplate transaction;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void writersDoNotWaitForEachOtherBeforeCommitting() throws Exception {
+        CountDownLatch recorded = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> slow = executor.submit(() -> transaction.executeWithoutResult(status -> {
+            changeLog.record(ChangedEntity.GAME, 1L, () -> { });
+            recorded.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertThat(recorded.await(5, TimeUnit.SECONDS)).isTrue();
+
+        long before = catalogVersion.current().version();
+        Future<?> fast = executor.submit(() -> transaction.executeWithoutResult(
+                status -> changeLog.record(ChangedEntity.GAME, 2L, () -> { })));
+        try {
+            fast.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+        }
+        slow.get(5, TimeUnit.SECONDS);
+
+        assertThat(catalogVersion.current().version()).isGreaterThan(before);
+        assertThat(jdbcTemplate.queryForList("SELECT entity_id FROM catalog_changes WHERE id > ? ORDER BY id", Long.class, before))
+                .containsExactly(2L, 1L);
+    }
+
+    @Test
+    void writesNothingOnRollback() {
+        long before = catalogVersion.current().version();
+        transaction.executeWithoutResult(status -> {
+            changeLog.record(ChangedEntity.GAME, 3L, () -> { });
+            status.setRollbackOnly();
+        });
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM catalog_changes WHERE id > ?", Long.class, before))
+                .isZero();
+        assertThat(catalogVersion.current().version()).isEqualTo(before);
+    }
+}
@@ -0,0 +1,163 @@
+package com.gamedb.controller;
+
+import com.gamedb.support.IntegrationTest;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class AdminControllerTest extends IntegrationTest {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void createsAndUpdatesGames() throws Exception {
+        MvcResult created = mvc.perform(post("/api/admin/games").header(HttpHeaders.AUTHORIZATION, bearer("admin"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Stardew Valley\",\"price\":14.99,\"tags\":[{\"id\":4}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").exists())
+                .andReturn();
+        long id = ((Number) JsonPath.read(created.getResponse().getContentAsString(), "$.id")).longValue();
+
+        mvc.perform(put("/api/admin/games/" + id).header(HttpHeaders.AUTHORIZATION, bearer("admin"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Stardew Valley 2\",\"price\":19.99,\"additionalImageUrls\":[\"s.png\"],"
+                                + "\"tags\":[{\"id\":2},{\"id\":4}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Stardew Valley 2"));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT title FROM games WHERE id = ?", String.class, id))
+                .isEqualTo("Stardew Valley 2");
+        assertThat(jdbcTemplate.queryForList("SELECT tag_id FROM game_tags WHERE game_id = ? ORDER BY tag_id", Long.class, id))
+                .containsExactly(2L, 4L);
+        assertThat(jdbcTemplate.queryForList("SELECT image_url FROM game_additional_images WHERE game_id = ?", String.class, id))
+                .containsExactly("s.png");
+        mvc.perform(get("/api/games/search").param("title", "stardew"))
+                .andExpect(jsonPath("$.content[*].title", contains("Stardew Valley 2")));
+
+        mvc.perform(put("/api/admin/games/999").header(HttpHeaders.AUTHORIZATION, bearer("admin"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Nothing\",\"tags\":[]}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void ingestsGamesInBulk() throws Exception {
+        mvc.perform(post("/api/admin/games/bulk").header(HttpHeaders.AUTHORIZATION, bearer("admin"))
+                        .contentType("application/x-ndjson")
+                        .content("{\"title\":\"Celeste\",\"tags\":[{\"name\":\"Platformer\"}]}\n"
+                                + "{\"title\":\"Super Meat Boy\",\"tags\":[{\"name\":\"Platformer\"},{\"name\":\"Indie\"}]}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(2))
+                .andExpect(jsonPath("$.failed").value(0));
+
+        mvc.perform(get("/api/games/search").param("tags", "Platformer"))
+                .andExpect(jsonPath("$.totalElements").value(2));
+    }
+
+    @Test
+    void ingestsTagsAnotherWriterCreatedFirst() throws Exception {
+        // Not in the tag dictionary yet, as if inserted by a concurrent ingest.
+        Long tagId = jdbcTemplate.queryForObject("INSERT INTO tags (name) VALUES ('Metroidvania') RETURNING id", Long.class);
+
+        mvc.perform(post("/api/admin/games/bulk").header(HttpHeaders.AUTHORIZATION, bearer("admin"))
+                        .contentType("application/x-ndjson")
+                        .content("{\"title\":\"Bloodstained\",\"tags\":[{\"name\":\"Metroidvania\"}]}\n"
+                                + "{\"title\":\"Axiom Verge\",\"tags\":[{\"name\":\"metroidvania\"}]}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(2))
+                .andExpect(jsonPath("$.failed").value(0));
+
+        assertThat(jdbcTemplate.queryForList("SELECT t.name FROM games g JOIN game_tags gt ON gt.game_id = g.id "
+                + "JOIN tags t ON t.id = gt.tag_id WHERE g.title IN ('Bloodstained', 'Axiom Verge') ORDER BY g.title", String.class))
+                .containsExactly("metroidvania", "Metroidvania");
+        assertThat(jdbcTemplate.queryForObject("SELECT gt.tag_id FROM game_tags gt JOIN games g ON g.id = gt.game_id "
+                + "WHERE g.title = 'Bloodstained'", Long.class)).isEqualTo(tagId);
+    }
+
+    @Test
+    void exportsTheCatalog() throws Exception {
+        MvcResult started = mvc.perform(get("/api/admin/games/export").param("after", "3")
+                        .header(HttpHeaders.AUTHORIZATION, bearer("admin")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<String> lines = body.lines().toList();
+        assertThat(lines).isNotEmpty();
+        assertThat(lines.get(0)).contains("\"id\":4");
+    }
+
+    @Test
+    void managesTags() throws Exception {
+        mvc.perform(post("/api/admin/tags").header(HttpHeaders.AUTHORIZATION, bearer("admin"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Roguelike\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Roguelike"));
+        mvc.perform(get("/api/admin/tags").header(HttpHeaders.AUTHORIZATION, bearer("admin")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name", hasItem("Roguelike")));
+        mvc.perform(get("/api/admin/tags/search").param("prefix", "rog").header(HttpHeaders.AUTHORIZATION, bearer("admin")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name", contains("Roguelike")));
+
+        Long id = jdbcTemplate.queryForObject("SELECT id FROM tags WHERE name = 'Roguelike'", Long.class);
+        mvc.perform(delete("/api/admin/tags/" + id).header(HttpHeaders.AUTHORIZATION, bearer("admin")))
+                .andExpect(status().isOk());
+        mvc.perform(get("/api/admin/tags").header(HttpHeaders.AUTHORIZATION, bearer("admin")))
+                .andExpect(jsonPath("$[*].name", not(hasItem("Roguelike"))));
+    }
+
+    @Test
+    void addsAndRemovesGameTags() throws Exception {
+        mvc.perform(post("/api/admin/games/3/tags/1").header(HttpHeaders.AUTHORIZATION, bearer("admin")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tags[*].name", hasItem("RPG")));
+        mvc.perform(delete("/api/admin/games/3/tags/1").header(HttpHeaders.AUTHORIZATION, bearer("admin")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tags[*].name", not(hasItem("RPG"))));
+    }
+
+    @Test
+    void promotesUsers() throws Exception {
+        jdbcTemplate.update("INSERT INTO users (username, password, role) SELECT 'carol', password, 'USER' FROM users WHERE username = 'bob'");
+
+        mvc.perform(put("/api/admin/users/carol/role").header(HttpHeaders.AUTHORIZATION, bearer("admin")))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("promoted")));
+        assertThat(jdbcTemplate.queryForObject("SELECT role FROM users WHERE username = 'carol'", String.class))
+                .isEqualTo("ADMIN");
+        mvc.perform(put("/api/admin/users/nobody/role").header(HttpHeaders.AUTHORIZATION, bearer("admin")))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void requiresTheAdminRole() throws Exception {
+        mvc.perform(get("/api/admin/tags").header(HttpHeaders.AUTHORIZATION, bearer("bob")))
+                .andExpect(status().isForbidden());
+    }
+}
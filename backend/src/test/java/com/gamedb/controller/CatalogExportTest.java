@@ -0,0 +1,112 @@
+package com.gamedb.controller;
+
+import com.gamedb.service.CatalogExportService;
+import com.gamedb.support.IntegrationTest;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Exports over a real connection, each taking longer than the async request timeout,
+ * which the export's own timeout replaces.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.mvc.async.request-timeout=1ms", "gamedb.export.fetch-size=2", "gamedb.export.max-concurrent=2"})
+class CatalogExportTest extends IntegrationTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @SpyBean
+    private CatalogExportService catalogExportService;
+
+    @BeforeEach
+    void slowDownExports() throws Exception {
+        // Long enough for the container's timeout check, which runs about once a second.
+        doAnswer(invocation -> {
+            Thread.sleep(2_500);
+            return invocation.callRealMethod();
+        }).when(catalogExportService).export(anyLong(), any());
+    }
+
+    @Test
+    void exportsTheWholeCatalog() throws Exception {
+        List<Long> ids = ids(exportLines(0));
+
+        assertThat(ids).isEqualTo(jdbcTemplate.queryForList("SELECT id FROM games ORDER BY id", Long.class));
+    }
+
+    @Test
+    void resumesAfterACut() throws Exception {
+        List<Long> all = ids(exportLines(0));
+
+        List<Long> received = new ArrayList<>();
+        HttpResponse<InputStream> cut = client.send(request(0), HttpResponse.BodyHandlers.ofInputStream());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(cut.body(), StandardCharsets.UTF_8))) {
+            received.add(id(reader.readLine()));
+            received.add(id(reader.readLine()));
+        }
+        received.addAll(ids(exportLines(received.get(received.size() - 1))));
+
+        assertThat(received).isEqualTo(all);
+    }
+
+    @Test
+    void rejectsExportsBeyondThePool() throws Exception {
+        CompletableFuture<HttpResponse<String>> first = client.sendAsync(request(0), HttpResponse.BodyHandlers.ofString());
+        CompletableFuture<HttpResponse<String>> second = client.sendAsync(request(0), HttpResponse.BodyHandlers.ofString());
+        // Both are still sleeping in the pool.
+        Thread.sleep(1_000);
+
+        assertThat(client.send(request(0), HttpResponse.BodyHandlers.ofString()).statusCode()).isEqualTo(503);
+        assertThat(first.get().statusCode()).isEqualTo(200);
+        assertThat(second.get().statusCode()).isEqualTo(200);
+    }
+
+    private List<String> exportLines(long after) throws Exception {
+        HttpResponse<String> response = client.send(request(after), HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isEqualTo(200);
+        return response.body().lines().toList();
+    }
+
+    private HttpRequest request(long after) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/admin/games/export?after=" + after))
+                .header(HttpHeaders.AUTHORIZATION, bearer("admin"))
+                .build();
+    }
+
+    private static List<Long> ids(List<String> lines) {
+        return lines.stream().map(CatalogExportTest::id).toList();
+    }
+
+    private static long id(String line) {
+        return ((Number) JsonPath.read(line, "$.id")).longValue();
+    }
+}
@@ -0,0 +1,67 @@
+package com.gamedb.controller;
+
+import com.gamedb.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class FavoriteControllerTest extends IntegrationTest {
+
+    @Test
+    void togglesFavoriteGames() throws Exception {
+        mvc.perform(post("/api/user/favorites/game/3").header(HttpHeaders.AUTHORIZATION, bearer("bob")))
+                .andExpect(status().isOk());
+        mvc.perform(get("/api/user/favorites/games").header(HttpHeaders.AUTHORIZATION, bearer("bob")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", hasItem(3)));
+
+        mvc.perform(post("/api/user/favorites/game/3").header(HttpHeaders.AUTHORIZATION, bearer("bob")))
+                .andExpect(status().isOk());
+        mvc.perform(get("/api/user/favorites/games").header(HttpHeaders.AUTHORIZATION, bearer("bob")))
+                .andExpect(jsonPath("$[*].id", not(hasItem(3))));
+    }
+
+    @Test
+    void togglesFavoriteTags() throws Exception {
+        mvc.perform(post("/api/user/favorites/tag/4").header(HttpHeaders.AUTHORIZATION, bearer("bob")))
+                .andExpect(status().isOk());
+        mvc.perform(post("/api/user/favorites/tag/4").header(HttpHeaders.AUTHORIZATION, bearer("bob")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void appliesBatchedChanges() throws Exception {
+        mvc.perform(post("/api/user/favorites/batch").header(HttpHeaders.AUTHORIZATION, bearer("bob"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"favoriteGames\":[4],\"favoriteTags\":[2]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.gameIds", hasItem(4)))
+                .andExpect(jsonPath("$.tagIds", hasItem(2)));
+        mvc.perform(post("/api/user/favorites/batch").header(HttpHeaders.AUTHORIZATION, bearer("bob"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"unfavoriteGames\":[4],\"unfavoriteTags\":[2]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.gameIds", not(hasItem(4))))
+                .andExpect(jsonPath("$.tagIds", not(hasItem(2))));
+    }
+
+    @Test
+    void recommendsGamesWithFavoriteTags() throws Exception {
+        mvc.perform(get("/api/user/favorites/recommendations").header(HttpHeaders.AUTHORIZATION, bearer("bob")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].id", not(hasItem(2))))
+                .andExpect(jsonPath("$.content[0].id").exists());
+    }
+
+    @Test
+    void requiresAuthentication() throws Exception {
+        mvc.perform(get("/api/user/favorites/games")).andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,161 @@
+package com.gamedb.controller;
+
+import com.gamedb.service.PopularityService;
+import com.gamedb.support.IntegrationTest;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class GameControllerTest extends IntegrationTest {
+
+    @Autowired
+    private PopularityService popularityService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void listsGames() throws Exception {
+        mvc.perform(get("/api/games").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].tags").isArray());
+    }
+
+    @Test
+    void answersUnchangedListsWithNotModified() throws Exception {
+        MvcResult first = mvc.perform(get("/api/games")).andExpect(status().isOk()).andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+
+        mvc.perform(get("/api/games").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void searchesByTitleAndTags() throws Exception {
+        mvc.perform(get("/api/games/search").param("title", "witch"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].title", containsInAnyOrder("The Witcher 3: Wild Hunt", "Witchery")));
+        mvc.perform(get("/api/games/search").param("tags", "Horror").param("exclude", "RPG"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].title", contains("Dead Space")));
+        mvc.perform(get("/api/games/search").param("anyTags", "Indie,Coop").param("facets", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(3))
+                .andExpect(jsonPath("$.facets").isArray());
+    }
+
+    @Test
+    void resolvesTagsByNameBeforeId() throws Exception {
+        mvc.perform(get("/api/games/search").param("tags", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].title", contains("Dead Space")));
+        mvc.perform(get("/api/games/search").param("tags", "4"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].title", contains("Hollow Knight")));
+        mvc.perform(get("/api/games/search").param("tags", "99999999999999999999"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/games/search/scroll").param("exclude", "99999999999999999999"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void scrollsThroughGames() throws Exception {
+        MvcResult first = mvc.perform(get("/api/games/scroll").param("size", "2").param("withTotal", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andReturn();
+        String next = JsonPath.read(first.getResponse().getContentAsString(), "$.nextCursor");
+
+        mvc.perform(get("/api/games/scroll").param("size", "2").param("after", next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2));
+        mvc.perform(get("/api/games/search/scroll").param("title", "witch").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.last").value(false));
+    }
+
+    @Test
+    void getsOneGame() throws Exception {
+        mvc.perform(get("/api/games/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("The Witcher 3: Wild Hunt"))
+                .andExpect(jsonPath("$.additionalImageUrls.length()").value(2));
+        mvc.perform(get("/api/games/999")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void listsTrendingGames() throws Exception {
+        mvc.perform(get("/api/games/trending")).andExpect(status().isOk()).andExpect(jsonPath("$").isArray());
+    }
+
+    @Test
+    void countsRevalidatedViews() throws Exception {
+        popularityService.flush();
+        long before = views(3L);
+
+        String etag = mvc.perform(get("/api/games/3")).andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mvc.perform(get("/api/games/3").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        mvc.perform(get("/api/games/999").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        popularityService.flush();
+
+        assertThat(views(3L)).isEqualTo(before + 2);
+        assertThat(views(999L)).isZero();
+    }
+
+    @Test
+    void findsSimilarGames() throws Exception {
+        mvc.perform(get("/api/games/2/similar"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", not(hasItem(2))));
+        mvc.perform(get("/api/games/999/similar")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void listsAndCompletesTags() throws Exception {
+        mvc.perform(get("/api/games/tags").header(HttpHeaders.AUTHORIZATION, bearer("bob")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name", hasItem("Horror")));
+        mvc.perform(get("/api/games/tags/search").param("prefix", "ho"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name", contains("Horror")));
+    }
+
+    @Test
+    void addsAndRemovesTags() throws Exception {
+        mvc.perform(post("/api/games/4/tags/3").header(HttpHeaders.AUTHORIZATION, bearer("bob")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tags[*].name", hasItem("Horror")));
+        mvc.perform(get("/api/games/search").param("tags", "Horror"))
+                .andExpect(jsonPath("$.content[*].id", hasItem(4)));
+
+        mvc.perform(delete("/api/games/4/tags/3").header(HttpHeaders.AUTHORIZATION, bearer("bob")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tags[*].name", not(hasItem("Horror"))));
+        mvc.perform(get("/api/games/search").param("tags", "Horror"))
+                .andExpect(jsonPath("$.content[*].id", not(hasItem(4))));
+    }
+
+    private long views(Long gameId) {
+        return jdbcTemplate.queryForList("SELECT views FROM game_popularity WHERE game_id = ?", Long.class, gameId)
+                .stream().findFirst().orElse(0L);
+    }
+}
@@ -0,0 +1,60 @@
+package com.gamedb.datasource;
+
+import com.gamedb.Entity.Game;
+import com.gamedb.service.GameService;
+import com.gamedb.support.IntegrationTest;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The test database doubles as its own replica, so read-only transactions take their
+ * connections from the replica pool.
+ */
+@TestPropertySource(properties = "gamedb.datasource.replicas[0].url=${spring.datasource.url}")
+class ReplicaCacheModeTest extends IntegrationTest {
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ReplicaRoutingDataSource routingDataSource;
+
+    private SessionFactory sessionFactory;
+
+    @BeforeEach
+    void evictCaches() {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+    }
+
+    @AfterEach
+    void clearRouting() {
+        ReplicaRoutingDataSource.clear();
+    }
+
+    @Test
+    void replicaReadsDoNotFillTheCache() {
+        assertThat(gameService.findById(1L)).isPresent();
+
+        assertThat(routingDataSource.getReplicaPools().get(0).getHikariPoolMXBean().getTotalConnections()).isPositive();
+        assertThat(sessionFactory.getCache().containsEntity(Game.class, 1L)).isFalse();
+    }
+
+    @Test
+    void primaryReadsFillTheCache() {
+        ReplicaRoutingDataSource.usePrimary();
+        assertThat(gameService.findById(1L)).isPresent();
+
+        assertThat(sessionFactory.getCache().containsEntity(Game.class, 1L)).isTrue();
+    }
+}
@@ -0,0 +1,85 @@
+package com.gamedb.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class SimilarityIndexTest {
+    private TagIndex tagIndex;
+    private SimilarityIndex similarityIndex;
+
+    @BeforeEach
+    void setUp() {
+        tagIndex = new TagIndex(mock(DataSource.class), mock(PlatformTransactionManager.class));
+        similarityIndex = new SimilarityIndex(tagIndex);
+    }
+
+    @Test
+    void findsNearDuplicates() {
+        // Pairs sharing 9 of 11 tags (Jaccard 0.82) share a bucket with probability 0.98.
+        int pairs = 500;
+        for (long pair = 0; pair < pairs; pair++) {
+            long firstTag = pair * 20;
+            tagIndex.setTags(2 * pair + 1, tags(firstTag, firstTag + 10));
+            tagIndex.setTags(2 * pair + 2, tags(firstTag + 1, firstTag + 11));
+        }
+        similarityIndex.rebuild();
+
+        int found = 0;
+        for (long pair = 0; pair < pairs; pair++) {
+            List<Long> similar = similarityIndex.similar(2 * pair + 1, 10);
+            assertThat(similar).isSubsetOf(2 * pair + 2);
+            found += similar.size();
+        }
+        assertThat(found).isGreaterThanOrEqualTo(pairs * 95 / 100);
+    }
+
+    @Test
+    void neverReturnsTheGameItself() {
+        tagIndex.setTags(1L, List.of(1L, 2L, 3L));
+        tagIndex.setTags(2L, List.of(1L, 2L, 3L));
+        similarityIndex.rebuild();
+
+        assertThat(similarityIndex.similar(1L, 10)).containsExactly(2L);
+        assertThat(similarityIndex.similar(2L, 10)).containsExactly(1L);
+    }
+
+    @Test
+    void ranksBySimilarityThenId() {
+        tagIndex.setTags(10L, tags(1, 6));
+        tagIndex.setTags(13L, tags(1, 7));
+        tagIndex.setTags(12L, List.of(1L, 2L, 3L, 4L, 5L, 8L));
+        tagIndex.setTags(11L, tags(1, 6));
+        similarityIndex.rebuild();
+
+        assertThat(similarityIndex.similar(10L, 10)).containsExactly(11L, 12L, 13L);
+        assertThat(similarityIndex.similar(10L, 2)).containsExactly(11L, 12L);
+    }
+
+    @Test
+    void skipsGamesWithoutCommonTags() {
+        tagIndex.setTags(1L, tags(1, 4));
+        tagIndex.setTags(2L, tags(1, 4));
+        tagIndex.setTags(3L, tags(100, 103));
+        tagIndex.setTags(4L, List.of());
+        similarityIndex.rebuild();
+
+        tagIndex.setTags(2L, tags(200, 203));
+        similarityIndex.update(2L, tagIndex.tagsOf(2L));
+
+        assertThat(similarityIndex.similar(1L, 10)).isEmpty();
+        assertThat(similarityIndex.similar(4L, 10)).isEmpty();
+        assertThat(similarityIndex.similar(99L, 10)).isEmpty();
+    }
+
+    private static List<Long> tags(long from, long to) {
+        return LongStream.range(from, to).boxed().toList();
+    }
+}
@@ -0,0 +1,47 @@
+package com.gamedb.index;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TagIndexTest {
+    @Test
+    void keepsUpdatesMadeWhileRebuilding() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(mock(ResultSet.class));
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        TagIndex index = new TagIndex(dataSource, transactionManager);
+        index.setTags(1L, List.of(1L, 2L));
+
+        // The tables turn out empty; these updates land while they load.
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            index.setTags(2L, List.of(1L));
+            index.addTag(3L, 2L);
+            index.removeTag(3L, 2L);
+            index.addTag(3L, 1L);
+            return mock(TransactionStatus.class);
+        });
+        index.rebuild();
+
+        assertThat(index.match(List.of(1L), List.of(), List.of()).toArray()).containsExactly(2, 3);
+        assertThat(index.countGames(2L)).isZero();
+        assertThat(index.tagsOf(1L)).isEmpty();
+        assertThat(index.gameCount()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,51 @@
+package com.gamedb.index;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TitleIndexTest {
+    @Test
+    void servesThePreviousTitlesAndKeepsUpdatesWhileRebuilding() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(mock(ResultSet.class));
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        TitleIndex index = new TitleIndex(dataSource, transactionManager);
+        index.put(1L, "Dead Space");
+        index.put(2L, "Hades");
+
+        // The table turns out empty; these updates land while it loads.
+        List<TitleIndex.Match> duringLoad = new ArrayList<>();
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            index.put(3L, "Celeste");
+            index.remove(2L);
+            duringLoad.addAll(index.search("dead"));
+            return mock(TransactionStatus.class);
+        });
+        index.rebuild();
+
+        assertThat(duringLoad).extracting(TitleIndex.Match::id).containsExactly(1L);
+
+        assertThat(index.search("celeste")).extracting(TitleIndex.Match::id).containsExactly(3L);
+        assertThat(index.search("dead")).isEmpty();
+        assertThat(index.search("hades")).isEmpty();
+        assertThat(index.size()).isEqualTo(1);
+    }
+}
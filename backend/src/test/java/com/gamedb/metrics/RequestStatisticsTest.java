@@ -0,0 +1,71 @@
+package com.gamedb.metrics;
+
+import com.gamedb.repository.GameRepository;
+import com.gamedb.support.IntegrationTest;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Statements are counted below JPA and JDBC alike, including those a streaming response
+ * runs on another thread.
+ */
+class RequestStatisticsTest extends IntegrationTest {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void endCounting() {
+        RequestStatistics.end();
+    }
+
+    @Test
+    void countsJdbcAndJpaStatements() {
+        RequestStatistics.begin(10, true);
+        jdbcTemplate.queryForObject("SELECT count(*) FROM games", Long.class);
+        gameRepository.count();
+
+        RequestStatistics statistics = RequestStatistics.end();
+        assertThat(statistics.getStatements()).isEqualTo(2);
+        assertThat(statistics.getStatementLog()).first().isEqualTo("SELECT count(*) FROM games");
+    }
+
+    @Test
+    void enforcesTheBudgetOnJdbcStatements() {
+        RequestStatistics.begin(0, true);
+
+        assertThatThrownBy(() -> jdbcTemplate.queryForObject("SELECT 1", Integer.class))
+                .isInstanceOf(QueryBudgetExceededException.class);
+    }
+
+    @Test
+    void countsTheStatementsOfAStreamingResponse() throws Exception {
+        DistributionSummary exports = meterRegistry.find("hibernate.request.statements")
+                .tag("handler", "AdminController.exportGames").summary();
+        double before = exports == null ? 0 : exports.totalAmount();
+
+        MvcResult started = mvc.perform(get("/api/admin/games/export").header(HttpHeaders.AUTHORIZATION, bearer("admin")))
+                .andReturn();
+        mvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+
+        exports = meterRegistry.get("hibernate.request.statements").tag("handler", "AdminController.exportGames").summary();
+        assertThat(exports.totalAmount() - before).isEqualTo(1);
+    }
+}
@@ -0,0 +1,154 @@
+package com.gamedb.repository;
+
+import com.gamedb.service.FavoriteService;
+import com.gamedb.service.PopularityService;
+import com.gamedb.support.IntegrationTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The single-statement favorite toggles, including one that loses the insert race to a
+ * concurrent toggle of the same favorite.
+ */
+class FavoriteToggleTest extends IntegrationTest {
+    private static final long GAME = 5L;
+    private static final long TAG = 3L;
+
+    @Autowired
+    private UserFavoriteGameRepository userFavoriteGameRepository;
+
+    @Autowired
+    private UserFavoriteTagRepository userFavoriteTagRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FavoriteService favoriteService;
+
+    @Autowired
+    private PopularityService popularityService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private TransactionTemplate transaction;
+    private long userId;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        userId = userRepository.findByUsername("admin").orElseThrow().getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        jdbcTemplate.update("DELETE FROM user_favorite_games WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM user_favorite_tags WHERE user_id = ?", userId);
+    }
+
+    @Test
+    void reportsAddedAndRemoved() {
+        assertThat(toggleGame()).isEqualTo(1);
+        assertThat(toggleGame()).isEqualTo(-1);
+        assertThat(toggleTag()).isEqualTo(1);
+        assertThat(toggleTag()).isEqualTo(-1);
+    }
+
+    @Test
+    void reportsNoChangeWhenAConcurrentToggleAddedTheGame() throws Exception {
+        Future<Integer> second = raceWithConcurrentAdd(this::toggleGame);
+
+        assertThat(second.get(10, TimeUnit.SECONDS)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM user_favorite_games WHERE user_id = ? AND game_id = ?",
+                Long.class, userId, GAME)).isEqualTo(1);
+    }
+
+    @Test
+    void countsNoFavoriteForALostRace() throws Exception {
+        popularityService.flush();
+        long before = favorites();
+
+        Future<Boolean> second = raceWithConcurrentAdd(() -> favoriteService.toggleFavoriteGame(userId, GAME));
+
+        assertThat(second.get(10, TimeUnit.SECONDS)).isTrue();
+        popularityService.flush();
+        assertThat(favorites()).isEqualTo(before);
+    }
+
+    /**
+     * Adds the game in one transaction and runs {@code toggle} while that is still open, so
+     * the toggle's insert waits for it and then conflicts. Returns once the add committed.
+     */
+    private <T> Future<T> raceWithConcurrentAdd(Callable<T> toggle) throws Exception {
+        CountDownLatch added = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        Future<Integer> first = executor.submit(() -> transaction.<Integer>execute(status -> {
+            int result = userFavoriteGameRepository.toggle(userId, GAME);
+            added.countDown();
+            awaitQuietly(commit);
+            return result;
+        }));
+        assertThat(added.await(10, TimeUnit.SECONDS)).isTrue();
+
+        Future<T> second = executor.submit(toggle);
+        awaitBlockedOnLock();
+        commit.countDown();
+
+        assertThat(first.get(10, TimeUnit.SECONDS)).isEqualTo(1);
+        return second;
+    }
+
+    private long favorites() {
+        return jdbcTemplate.queryForList("SELECT favorites FROM game_popularity WHERE game_id = ?", Long.class, GAME)
+                .stream().findFirst().orElse(0L);
+    }
+
+    private int toggleGame() {
+        return transaction.execute(status -> userFavoriteGameRepository.toggle(userId, GAME));
+    }
+
+    private int toggleTag() {
+        return transaction.execute(status -> userFavoriteTagRepository.toggle(userId, TAG));
+    }
+
+    // Waits until the second toggle's insert is waiting for the first one's transaction.
+    private void awaitBlockedOnLock() throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            Long waiting = jdbcTemplate.queryForObject("SELECT count(*) FROM pg_stat_activity "
+                    + "WHERE datname = current_database() AND wait_event_type = 'Lock'", Long.class);
+            if (waiting > 0) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("The second toggle never waited for the first");
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
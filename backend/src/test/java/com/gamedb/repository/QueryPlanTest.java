@@ -0,0 +1,69 @@
+package com.gamedb.repository;
+
+import com.gamedb.support.IntegrationTest;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that every query the repositories and services run on a hot path can be
+ * answered from an index. Sequential scans are disabled while planning, so a plan that
+ * still scans a table means no index fits the query; the fixture is too small for the
+ * planner to prefer indexes on its own.
+ */
+class QueryPlanTest extends IntegrationTest {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    static Stream<Arguments> queries() {
+        return Stream.of(
+                Arguments.of("GameRepository.findIdSlice", "SELECT id FROM games ORDER BY id LIMIT 30 OFFSET 30"),
+                Arguments.of("GameRepository.findIdSliceAfter", "SELECT id FROM games WHERE id > 3 ORDER BY id LIMIT 31"),
+                Arguments.of("GameRepository.findSummariesByIdIn",
+                        "SELECT id, title, release_date, price, image_url, steam_link FROM games WHERE id IN (1, 2, 3)"),
+                Arguments.of("GameRepository.findById", "SELECT * FROM games WHERE id = 1"),
+                Arguments.of("Game.tags", "SELECT t.* FROM game_tags gt JOIN tags t ON t.id = gt.tag_id WHERE gt.game_id IN (1, 2)"),
+                Arguments.of("Game.additionalImageUrls", "SELECT * FROM game_additional_images WHERE game_id IN (1, 2)"),
+                Arguments.of("Game.additionalVideoUrls", "SELECT * FROM game_additional_videos WHERE game_id IN (1, 2)"),
+                Arguments.of("games by tag", "SELECT game_id FROM game_tags WHERE tag_id = 1"),
+                Arguments.of("UserRepository.findByUsername", "SELECT * FROM users WHERE username = 'bob'"),
+                Arguments.of("UserFavoriteGameRepository.findGameIdsByUserId", "SELECT game_id FROM user_favorite_games WHERE user_id = 2"),
+                Arguments.of("UserFavoriteGameRepository.removeAll",
+                        "DELETE FROM user_favorite_games WHERE user_id = 2 AND game_id IN (1, 2)"),
+                Arguments.of("favorites of a deleted game", "DELETE FROM user_favorite_games WHERE game_id = 1"),
+                Arguments.of("UserFavoriteTagRepository.findTagIdsByUserId", "SELECT tag_id FROM user_favorite_tags WHERE user_id = 2"),
+                Arguments.of("UserFavoriteTagRepository.removeAll",
+                        "DELETE FROM user_favorite_tags WHERE user_id = 2 AND tag_id IN (1, 2)"),
+                Arguments.of("favorites of a deleted tag", "DELETE FROM user_favorite_tags WHERE tag_id = 1"),
+                Arguments.of("PopularityService trending",
+                        "SELECT game_id FROM game_popularity WHERE rank_key IS NOT NULL ORDER BY rank_key DESC LIMIT 100"),
+                Arguments.of("CatalogChangeListener changes after",
+                        "SELECT id, entity, entity_id, origin FROM catalog_changes WHERE id > 10 ORDER BY id"),
+                Arguments.of("CatalogChangeListener prune",
+                        "DELETE FROM catalog_changes WHERE created_at < now() - interval '1 day'"));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("queries")
+    void usesAnIndex(String name, String sql) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        List<String> plan = transaction.execute(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            return jdbcTemplate.queryForList("EXPLAIN " + sql, String.class);
+        });
+
+        assertThat(String.join("\n", plan)).as(name).doesNotContain("Seq Scan");
+    }
+}
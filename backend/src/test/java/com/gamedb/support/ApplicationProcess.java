@@ -0,0 +1,103 @@
+package com.gamedb.support;
+
+import com.gamedb.GamedbApplication;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Another node of the application in a JVM of its own, on a {@link TestDatabase} and
+ * the test profile. Hibernate's cache regions live in a JVM-wide cache manager, so a
+ * second node cannot share the test JVM.
+ */
+public final class ApplicationProcess implements AutoCloseable {
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    private final Process process;
+    private final int port;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private ApplicationProcess(Process process, int port) {
+        this.process = process;
+        this.port = port;
+    }
+
+    /**
+     * Starts a node on the given database and waits until it serves requests. Its output
+     * goes to {@code target/<name>.log}.
+     */
+    public static ApplicationProcess start(String name, String database, String... args) throws IOException, InterruptedException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> command = new ArrayList<>(List.of(
+                ProcessHandle.current().info().command().orElse("java"), "-Xmx512m",
+                "-cp", System.getProperty("java.class.path"),
+                GamedbApplication.class.getName(),
+                "--spring.profiles.active=test",
+                "--server.port=" + port,
+                "--spring.datasource.url=" + database,
+                "--spring.datasource.username=" + TestDatabase.username(),
+                "--spring.datasource.password=" + TestDatabase.password()));
+        command.addAll(List.of(args));
+        File log = Path.of("target", name + ".log").toFile();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(log).start();
+        ApplicationProcess node = new ApplicationProcess(process, port);
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException(name + " exited with " + process.exitValue() + ", see " + log);
+            }
+            try {
+                if (node.get("/api/games/1", null).statusCode() == 200) {
+                    return node;
+                }
+            } catch (IOException starting) {
+                // Not listening yet.
+            }
+            Thread.sleep(500);
+        }
+        node.close();
+        throw new IllegalStateException(name + " did not start within " + STARTUP_TIMEOUT + ", see " + log);
+    }
+
+    public HttpResponse<String> get(String path, String authorization) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(uri(path)).GET(), authorization);
+    }
+
+    public HttpResponse<String> post(String path, String authorization) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.noBody()), authorization);
+    }
+
+    public HttpResponse<String> delete(String path, String authorization) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(uri(path)).DELETE(), authorization);
+    }
+
+    public URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        process.waitFor();
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request, String authorization) throws IOException, InterruptedException {
+        if (authorization != null) {
+            request.header("Authorization", authorization);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,78 @@
+package com.gamedb.support;
+
+import com.gamedb.repository.UserRepository;
+import com.gamedb.security.JwtUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Base for tests that run the whole application against a {@link TestDatabase}, with
+ * query budgets enforced: a request that runs more statements than its
+ * {@code @QueryBudget} fails, and every test checks that none did. Each test class gets
+ * a context and database of its own, starting from the fixture, so what one class writes
+ * never shows up in another's results.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public abstract class IntegrationTest {
+    @Autowired
+    protected MockMvc mvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        TestDatabase.register(registry);
+    }
+
+    private Map<String, Double> exceededBefore;
+
+    @BeforeEach
+    void countBudgetsExceeded() {
+        exceededBefore = budgetsExceeded();
+    }
+
+    @AfterEach
+    void noQueryBudgetExceeded() {
+        Map<String, Double> exceeded = budgetsExceeded();
+        exceeded.replaceAll((handler, count) -> count - exceededBefore.getOrDefault(handler, 0.0));
+        exceeded.values().removeIf(count -> count == 0);
+        assertThat(exceeded.keySet()).as("handlers over their query budget").isEmpty();
+    }
+
+    protected String bearer(String username) {
+        return "Bearer " + jwtUtil.generateToken(userRepository.findByUsername(username).orElseThrow());
+    }
+
+    private Map<String, Double> budgetsExceeded() {
+        Map<String, Double> counts = new HashMap<>();
+        for (Counter counter : meterRegistry.find("hibernate.request.budget.exceeded").counters()) {
+            counts.put(counter.getId().getTag("handler"), counter.count());
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,76 @@
+package com.gamedb.support;
+
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+/**
+ * Scratch PostgreSQL databases for the integration tests, one per application context,
+ * created on the server at {@code gamedb.test.server} and dropped when the JVM exits.
+ * Flyway builds the schema and loads the fixture when the context starts.
+ */
+public final class TestDatabase {
+    private static final String SERVER = System.getProperty("gamedb.test.server", "jdbc:postgresql://localhost:5432/");
+    private static final String USERNAME = System.getProperty("gamedb.test.username", "postgres");
+    private static final String PASSWORD = System.getProperty("gamedb.test.password", "1234");
+    private static final int DROP_ATTEMPTS = 50;
+
+    private TestDatabase() {
+    }
+
+    /**
+     * Creates an empty database and returns its url.
+     */
+    public static String create() {
+        String name = "gamedb_test_" + UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+        execute("CREATE DATABASE " + name);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> drop(name)));
+        return SERVER + name;
+    }
+
+    public static String username() {
+        return USERNAME;
+    }
+
+    public static String password() {
+        return PASSWORD;
+    }
+
+    // Runs once per context, so every context gets a database of its own.
+    public static void register(DynamicPropertyRegistry registry) {
+        String database = create();
+        registry.add("spring.datasource.url", () -> database);
+        registry.add("spring.datasource.username", TestDatabase::username);
+        registry.add("spring.datasource.password", TestDatabase::password);
+    }
+
+    // Application contexts close their pools from shutdown hooks of their own, so wait for them first.
+    private static void drop(String name) {
+        for (int attempt = 0; attempt < DROP_ATTEMPTS; attempt++) {
+            try {
+                execute("DROP DATABASE IF EXISTS " + name);
+                return;
+            } catch (IllegalStateException inUse) {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException ex) {
+                    break;
+                }
+            }
+        }
+        execute("DROP DATABASE IF EXISTS " + name + " WITH (FORCE)");
+    }
+
+    private static void execute(String sql) {
+        try (Connection connection = DriverManager.getConnection(SERVER + "postgres", USERNAME, PASSWORD);
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Could not run '" + sql + "' on " + SERVER, ex);
+        }
+    }
+}
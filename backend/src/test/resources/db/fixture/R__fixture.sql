@@ -0,0 +1,10 @@
+-- Integration test fixture. Both users have the password "pw". Tag 5 is named after tag 1's id.
+INSERT INTO users (username, password, role) VALUES ('admin', '$2a$10$HWtpBQlvpe0MZlYaF7ncMeL1Oc9NKw3Z6J1gcZ4tWnF/v/1tUqI4i', 'ADMIN');
+INSERT INTO users (username, password, role) VALUES ('bob', '$2a$10$HWtpBQlvpe0MZlYaF7ncMeL1Oc9NKw3Z6J1gcZ4tWnF/v/1tUqI4i', 'USER');
+INSERT INTO tags (name) VALUES ('RPG'), ('Coop'), ('Horror'), ('Indie'), ('1');
+INSERT INTO games (title, description, price) VALUES ('The Witcher 3: Wild Hunt', 'desc', 29.99), ('Witchery', 'd', 5), ('Hollow Knight', 'd', 15), ('Portal 2', 'd', 9.99), ('Dead Space', 'd', 19.99);
+INSERT INTO game_tags (game_id, tag_id) VALUES (1,1),(2,1),(2,3),(3,4),(4,2),(5,3),(1,2),(5,5);
+INSERT INTO game_additional_images (game_id, image_url) VALUES (1,'a.png'),(1,'b.png'),(3,'c.png');
+INSERT INTO game_additional_videos (game_id, video_url) VALUES (4,'v.mp4');
+INSERT INTO user_favorite_tags (user_id, tag_id) VALUES (2,1),(2,3);
+INSERT INTO user_favorite_games (user_id, game_id) VALUES (2,2);
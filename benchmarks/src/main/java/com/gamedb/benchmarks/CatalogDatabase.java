@@ -0,0 +1,78 @@
+package com.gamedb.benchmarks;
+
+import com.gamedb.GamedbApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * The backend running against an embedded PostgreSQL seeded with a synthetic catalog.
+ * The data is the same on every run: titles are built from a fixed word list and tags
+ * follow a fixed, skewed distribution, so a few tags are on most games.
+ */
+final class CatalogDatabase implements AutoCloseable {
+    static final int TAGS = 500;
+    private static final String WORDS = "ARRAY['dark','souls','legend','witch','star','craft','hollow','knight','space',"
+            + "'station','dragon','age','final','fantasy','city','builder','racing','league','empire','war',"
+            + "'shadow','hunter','island','survival','rogue','dungeon','sky','ocean','iron','storm',"
+            + "'ghost','tactics','farm','story','cyber','punk','forest','quest','zero','horizon']";
+    private static final String SEED_GAMES = "INSERT INTO games (title, description, release_date, price, image_url, steam_link) "
+            + "SELECT initcap(w.a || ' ' || w.b) || ' ' || i, 'Synthetic game ' || i, DATE '2000-01-01' + (i % 9000), "
+            + "(i % 60) + 0.99, 'https://cdn.example.com/games/' || i || '.jpg', 'https://store.steampowered.com/app/' || i "
+            + "FROM generate_series(1, ?) i, "
+            + "LATERAL (SELECT (" + WORDS + ")[1 + (i * 7) % 40] AS a, (" + WORDS + ")[1 + (i / 40) % 40] AS b) w";
+    // Three to six tags per game, drawn so that low tag ids are far more common.
+    private static final String SEED_GAME_TAGS = "INSERT INTO game_tags (game_id, tag_id) "
+            + "SELECT DISTINCT g.id, 1 + floor(power(random(), 3) * " + TAGS + ")::int "
+            + "FROM games g, LATERAL generate_series(1, 3 + (g.id % 4)::int) n";
+
+    private final EmbeddedPostgres postgres;
+    private final ConfigurableApplicationContext context;
+
+    private CatalogDatabase(EmbeddedPostgres postgres, ConfigurableApplicationContext context) {
+        this.postgres = postgres;
+        this.context = context;
+    }
+
+    static CatalogDatabase start(int games) throws IOException, SQLException {
+        EmbeddedPostgres postgres = EmbeddedPostgres.start();
+        String url = postgres.getJdbcUrl("postgres", "postgres");
+        Flyway.configure().dataSource(url, "postgres", "").load().migrate();
+        try (Connection connection = postgres.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("SELECT setseed(0.42)");
+            statement.execute("INSERT INTO tags (name) SELECT 'tag-' || i FROM generate_series(1, " + TAGS + ") i");
+            try (PreparedStatement insertGames = connection.prepareStatement(SEED_GAMES)) {
+                insertGames.setInt(1, games);
+                insertGames.execute();
+            }
+            statement.execute(SEED_GAME_TAGS);
+            statement.execute("ANALYZE");
+        }
+        // As arguments, so they win over the backend's application.properties.
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(GamedbApplication.class)
+                .run("--spring.datasource.url=" + url,
+                        "--spring.datasource.username=postgres",
+                        "--spring.datasource.password=",
+                        "--server.port=0",
+                        "--logging.level.root=WARN");
+        return new CatalogDatabase(postgres, context);
+    }
+
+    <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        postgres.close();
+    }
+}
@@ -0,0 +1,87 @@
+package com.gamedb.benchmarks;
+
+import com.gamedb.dto.GameSummaryDTO;
+import com.gamedb.index.TagFilter;
+import com.gamedb.service.GameService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GameService#search} through the Spring proxy, against a seeded catalog of
+ * {@code gamedb.benchmark.games} games (100k by default). Each query shape is run for
+ * the first page and a deep one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class GameSearchBenchmark {
+    @Param({"title", "popularTag", "rareTag", "titleAndTags", "excludeTag"})
+    public String query;
+
+    @Param({"0", "100"})
+    public int page;
+
+    private CatalogDatabase database;
+    private GameService gameService;
+    private String title;
+    private TagFilter filter;
+    private PageRequest pageable;
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        database = CatalogDatabase.start(Integer.getInteger("gamedb.benchmark.games", 100_000));
+        gameService = database.getBean(GameService.class);
+        pageable = PageRequest.of(page, 30);
+        switch (query) {
+            case "title":
+                filter = new TagFilter(null, null, null);
+                title = "dark";
+                break;
+            case "popularTag":
+                filter = new TagFilter(List.of("tag-1"), null, null);
+                break;
+            case "rareTag":
+                filter = new TagFilter(List.of("tag-" + CatalogDatabase.TAGS), null, null);
+                break;
+            case "titleAndTags":
+                filter = new TagFilter(List.of("tag-1"), List.of("tag-2", "tag-3"), null);
+                title = "witch hunter";
+                break;
+            case "excludeTag":
+                filter = new TagFilter(List.of("tag-2"), null, List.of("tag-1"));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown query " + query);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        database.close();
+    }
+
+    @Benchmark
+    public Page<GameSummaryDTO> search() {
+        return gameService.search(title, filter, pageable);
+    }
+}
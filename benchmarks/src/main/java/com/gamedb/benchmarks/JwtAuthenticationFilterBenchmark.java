@@ -0,0 +1,98 @@
+package com.gamedb.benchmarks;
+
+import com.gamedb.Entity.Role;
+import com.gamedb.security.AuthenticatedUser;
+import com.gamedb.security.CustomUserDetailsService;
+import com.gamedb.security.JwtAuthenticationFilter;
+import com.gamedb.security.JwtUtil;
+import com.gamedb.security.PrincipalCache;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One authenticated request through {@link JwtAuthenticationFilter}:
+ * <ul>
+ *     <li>{@code cached}: the token's principal is already cached</li>
+ *     <li>{@code verified}: the signature is checked and the principal built from the claims</li>
+ *     <li>{@code lookup}: a token without id and role claims, so the user is also loaded</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+    @Param({"cached", "verified", "lookup"})
+    public String path;
+
+    private JwtAuthenticationFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        JwtUtil jwtUtil = new JwtUtil(JwtBenchmark.SECRET, JwtBenchmark.EXPIRATION_MS, meterRegistry);
+        CustomUserDetailsService userDetailsService = Mockito.mock(CustomUserDetailsService.class);
+        Mockito.when(userDetailsService.loadUserByUsername("benchmark-user"))
+                .thenReturn(new AuthenticatedUser(42L, "benchmark-user", "", Role.USER, null));
+        // Entries that expire at once make every request verify its token.
+        Duration ttl = "cached".equals(path) ? Duration.ofMinutes(5) : Duration.ZERO;
+        PrincipalCache principalCache = new PrincipalCache(10_000, ttl, JwtBenchmark.EXPIRATION_MS, meterRegistry);
+        filter = new JwtAuthenticationFilter(jwtUtil, userDetailsService, principalCache);
+
+        String token = "lookup".equals(path)
+                ? subjectOnlyToken("benchmark-user")
+                : jwtUtil.generateToken(JwtBenchmark.user(42L, "benchmark-user", Role.USER));
+        authorization = "Bearer " + token;
+    }
+
+    @Benchmark
+    public Authentication authenticate() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/user/favorites/games");
+        request.addHeader("Authorization", authorization);
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    // Tokens issued before the id and role claims were added.
+    private static String subjectOnlyToken(String username) {
+        Date now = new Date();
+        return Jwts.builder()
+                .setSubject(username)
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + JwtBenchmark.EXPIRATION_MS))
+                .signWith(Keys.hmacShaKeyFor(JwtBenchmark.SECRET.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+    }
+}
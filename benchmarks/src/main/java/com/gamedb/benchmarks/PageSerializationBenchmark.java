@@ -0,0 +1,136 @@
+package com.gamedb.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.gamedb.Entity.Game;
+import com.gamedb.Entity.Tag;
+import com.gamedb.dto.GameDTO;
+import com.gamedb.dto.GameSummaryDTO;
+import com.gamedb.dto.TagDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * A page of games written as JSON the way the API writes it: the entities the list
+ * endpoints used to return, the full {@link GameDTO} and the {@link GameSummaryDTO}
+ * they return now.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageSerializationBenchmark {
+    private static final String DESCRIPTION = "An open world action role-playing game. ".repeat(10);
+    private static final String STORY = "The story follows a monster hunter searching for a missing child. ".repeat(15);
+
+    @Param({"30", "100"})
+    public int rows;
+
+    private ObjectMapper objectMapper;
+    private Page<Game> games;
+    private Page<GameDTO> gameDtos;
+    private Page<GameSummaryDTO> summaries;
+
+    @Setup
+    public void setUp() {
+        // As configured by Spring Boot and JacksonConfig.
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .filters(new SimpleFilterProvider().setFailOnUnknownId(false))
+                .build();
+        List<Game> content = new ArrayList<>(rows);
+        for (long id = 1; id <= rows; id++) {
+            content.add(game(id));
+        }
+        PageRequest pageable = PageRequest.of(0, rows);
+        games = new PageImpl<>(content, pageable, 100_000);
+        gameDtos = new PageImpl<>(content.stream().map(PageSerializationBenchmark::toDto).collect(Collectors.toList()), pageable, 100_000);
+        summaries = new PageImpl<>(content.stream().map(PageSerializationBenchmark::toSummary).collect(Collectors.toList()), pageable, 100_000);
+    }
+
+    @Benchmark
+    public byte[] gameEntities() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(games);
+    }
+
+    @Benchmark
+    public byte[] gameDtos() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(gameDtos);
+    }
+
+    @Benchmark
+    public byte[] gameSummaries() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(summaries);
+    }
+
+    private static Game game(long id) {
+        Game game = new Game();
+        game.setId(id);
+        game.setTitle("Game " + id);
+        game.setDescription(DESCRIPTION);
+        game.setStory(STORY);
+        game.setReleaseDate(LocalDate.of(2015, 5, 19).plusDays(id));
+        game.setPrice(new BigDecimal("29.99"));
+        game.setImageUrl("https://cdn.example.com/games/" + id + "/cover.jpg");
+        game.setVideoUrl("https://cdn.example.com/games/" + id + "/trailer.mp4");
+        game.setSteamLink("https://store.steampowered.com/app/" + id);
+        for (int i = 1; i <= 3; i++) {
+            game.getAdditionalImageUrls().add("https://cdn.example.com/games/" + id + "/shot" + i + ".jpg");
+        }
+        game.getAdditionalVideoUrls().add("https://cdn.example.com/games/" + id + "/gameplay.mp4");
+        for (long tagId = 1; tagId <= 4; tagId++) {
+            Tag tag = new Tag();
+            tag.setId(id % 50 + tagId);
+            tag.setName("tag-" + (id % 50 + tagId));
+            game.getTags().add(tag);
+        }
+        return game;
+    }
+
+    private static GameDTO toDto(Game game) {
+        return new GameDTO(game.getId(), game.getTitle(), game.getDescription(), game.getStory(), game.getReleaseDate(),
+                game.getPrice(), game.getImageUrl(), game.getVideoUrl(), game.getSteamLink(),
+                game.getAdditionalImageUrls(), game.getAdditionalVideoUrls(), tags(game));
+    }
+
+    private static GameSummaryDTO toSummary(Game game) {
+        GameSummaryDTO summary = new GameSummaryDTO(game.getId(), game.getTitle(), game.getReleaseDate(), game.getPrice(),
+                game.getImageUrl(), game.getSteamLink());
+        summary.setTags(tags(game));
+        return summary;
+    }
+
+    private static Set<TagDTO> tags(Game game) {
+        Set<TagDTO> tags = new LinkedHashSet<>();
+        for (Tag tag : game.getTags()) {
+            tags.add(new TagDTO(tag.getId(), tag.getName()));
+        }
+        return tags;
+    }
+}
@@ -121,7 +121,16 @@ const AdminDashboard: React.FC = () => {
     }
   };
 
-  const startEditGame = (game: Game) => {
+  const startEditGame = async (summary: Game) => {
+    // List rows are summaries; the form needs the full game.
+    let game: Game;
+    try {
+      const response = await api.get(`/games/${summary.id}`);
+      game = response.data;
+    } catch (error) {
+      console.error("Error loading game:", error);
+      return;
+    }
     setEditingGame(game);
     setEditGame({
       title: game.title,
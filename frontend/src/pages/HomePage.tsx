@@ -20,7 +20,7 @@ const HomePage: React.FC = () => {
             const recommendedResponse = await api.get(
               "/user/favorites/recommendations"
             );
-            setRecommendedGames(recommendedResponse.data || []);
+            setRecommendedGames(recommendedResponse.data.content || []);
           } catch (error) {
             console.log("Could not fetch recommendations");
           }
@@ -0,0 +1,59 @@
+package com.gamedb.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks a run against a stored baseline, level by level and endpoint by endpoint. An
+ * endpoint regresses when its p95 or p99 grows, or its throughput drops, by more than the
+ * tolerance, or when it fails noticeably more often. Levels and endpoints missing from
+ * either side are skipped.
+ */
+final class BaselineComparison {
+    // Below this, latency differences are scheduling noise rather than regressions.
+    private static final double MIN_LATENCY_DELTA_MS = 2;
+    private static final double MAX_ERROR_RATE_INCREASE = 0.01;
+
+    private final double tolerance;
+
+    BaselineComparison(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    List<String> regressions(RunResult baseline, RunResult current) {
+        List<String> regressions = new ArrayList<>();
+        for (LevelResult level : current.levels()) {
+            LevelResult baseLevel = baseline.levels().stream()
+                    .filter(l -> l.concurrency() == level.concurrency())
+                    .findFirst()
+                    .orElse(null);
+            if (baseLevel == null) {
+                continue;
+            }
+            level.endpoints().forEach((endpoint, result) -> {
+                EndpointResult base = baseLevel.endpoints().get(endpoint);
+                if (base == null) {
+                    return;
+                }
+                String where = endpoint + " at concurrency " + level.concurrency();
+                checkLatency(regressions, where, "p95", base.p95(), result.p95());
+                checkLatency(regressions, where, "p99", base.p99(), result.p99());
+                if (result.throughput() < base.throughput() * (1 - tolerance)) {
+                    regressions.add(String.format("%s: throughput %.1f/s, baseline %.1f/s",
+                            where, result.throughput(), base.throughput()));
+                }
+                if (result.errorRate() > base.errorRate() + MAX_ERROR_RATE_INCREASE) {
+                    regressions.add(String.format("%s: error rate %.2f%%, baseline %.2f%%",
+                            where, result.errorRate() * 100, base.errorRate() * 100));
+                }
+            });
+        }
+        return regressions;
+    }
+
+    private void checkLatency(List<String> regressions, String where, String percentile, double base, double current) {
+        if (current > base * (1 + tolerance) && current - base > MIN_LATENCY_DELTA_MS) {
+            regressions.add(String.format("%s: %s %.1f ms, baseline %.1f ms", where, percentile, current, base));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.gamedb.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * What the load test knows about the catalog under test, sampled through the public API
+ * before the run: tag names for search and autocomplete, game ids to favorite, and words
+ * from titles to search for.
+ */
+final class Catalog {
+    private static final int SAMPLE_PAGES = 20;
+    private static final int SAMPLE_PAGE_SIZE = 100;
+    private static final int BROWSE_PAGE_SIZE = 30;
+
+    private final List<String> tagNames;
+    private final List<Long> gameIds;
+    private final List<String> titleWords;
+    private final int browsePages;
+
+    private Catalog(List<String> tagNames, List<Long> gameIds, List<String> titleWords, int browsePages) {
+        this.tagNames = tagNames;
+        this.gameIds = gameIds;
+        this.titleWords = titleWords;
+        this.browsePages = browsePages;
+    }
+
+    /**
+     * Listing all tags needs a signed-in user, so this takes a token.
+     */
+    static Catalog sample(GamedbClient client, String token) throws IOException, InterruptedException {
+        List<String> tagNames = new ArrayList<>();
+        for (JsonNode tag : client.getJson("/api/games/tags", token)) {
+            tagNames.add(tag.get("name").asText());
+        }
+
+        JsonNode first = client.getJson("/api/games?page=0&size=" + SAMPLE_PAGE_SIZE, null);
+        long totalGames = first.get("totalElements").asLong();
+        int totalPages = first.get("totalPages").asInt();
+        if (totalGames == 0 || tagNames.isEmpty()) {
+            throw new IllegalStateException("The catalog has no games or no tags to load test against");
+        }
+
+        // Pages spread evenly over the catalog, so old and new games are both represented.
+        List<Long> gameIds = new ArrayList<>();
+        Set<String> titleWords = new LinkedHashSet<>();
+        int step = Math.max(1, totalPages / SAMPLE_PAGES);
+        for (int page = 0; page < totalPages && page < step * SAMPLE_PAGES; page += step) {
+            JsonNode games = page == 0 ? first : client.getJson("/api/games?page=" + page + "&size=" + SAMPLE_PAGE_SIZE, null);
+            for (JsonNode game : games.get("content")) {
+                gameIds.add(game.get("id").asLong());
+                for (String word : game.get("title").asText().toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+                    if (word.length() >= 3 && !word.chars().allMatch(Character::isDigit)) {
+                        titleWords.add(word);
+                    }
+                }
+            }
+        }
+        int browsePages = (int) ((totalGames + BROWSE_PAGE_SIZE - 1) / BROWSE_PAGE_SIZE);
+        return new Catalog(tagNames, gameIds, new ArrayList<>(titleWords), browsePages);
+    }
+
+    /**
+     * A page of 30 games, heavily skewed towards the first pages the way real browsing is.
+     */
+    int browsePage(Random random) {
+        return (int) (Math.pow(random.nextDouble(), 4) * browsePages);
+    }
+
+    long gameId(Random random) {
+        return gameIds.get(random.nextInt(gameIds.size()));
+    }
+
+    String tagName(Random random) {
+        return tagNames.get(random.nextInt(tagNames.size()));
+    }
+
+    /**
+     * The first one to four characters of a tag name, as typed into the autocomplete box.
+     */
+    String tagPrefix(Random random) {
+        String name = tagName(random);
+        return name.substring(0, 1 + random.nextInt(Math.min(4, name.length())));
+    }
+
+    String titleWord(Random random) {
+        return titleWords.isEmpty() ? "a" : titleWords.get(random.nextInt(titleWords.size()));
+    }
+
+    int getSampledGameCount() {
+        return gameIds.size();
+    }
+
+    int getTagCount() {
+        return tagNames.size();
+    }
+}
@@ -0,0 +1,12 @@
+package com.gamedb.loadtest;
+
+/**
+ * One endpoint at one concurrency level. Latencies are in milliseconds and include
+ * failed requests; throughput counts every completed request per second.
+ */
+record EndpointResult(long requests, long errors, double throughput, double p50, double p95, double p99) {
+
+    double errorRate() {
+        return requests == 0 ? 0 : (double) errors / requests;
+    }
+}
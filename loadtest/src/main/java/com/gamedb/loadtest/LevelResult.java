@@ -0,0 +1,9 @@
+package com.gamedb.loadtest;
+
+import java.util.Map;
+
+/**
+ * Everything recorded at one concurrency level, keyed by endpoint.
+ */
+record LevelResult(int concurrency, int seconds, Map<String, EndpointResult> endpoints) {
+}
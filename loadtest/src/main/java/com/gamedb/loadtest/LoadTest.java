@@ -0,0 +1,139 @@
+package com.gamedb.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Drives a running backend with a fixed mix of catalog, auth and favorite requests at
+ * each configured concurrency level, reports throughput and latency percentiles per
+ * endpoint, and fails when the run regresses against the stored baseline. Options are
+ * system properties; see the module's pom.xml.
+ */
+public final class LoadTest {
+    private static final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("loadtest.url", "http://localhost:8080");
+        List<Integer> levels = Arrays.stream(System.getProperty("loadtest.concurrency", "8,32,64").split(","))
+                .map(String::trim)
+                .map(Integer::valueOf)
+                .collect(Collectors.toList());
+        int warmup = Integer.getInteger("loadtest.warmup", 10);
+        int duration = Integer.getInteger("loadtest.duration", 30);
+        long seed = Long.getLong("loadtest.seed", 42);
+        Path baselinePath = Path.of(System.getProperty("loadtest.baseline", "baseline.json"));
+        double tolerance = Double.parseDouble(System.getProperty("loadtest.tolerance", "0.2"));
+        Path resultPath = Path.of(System.getProperty("loadtest.result", "target/loadtest-result.json"));
+
+        GamedbClient client = new GamedbClient(url);
+        List<VirtualUser> users = new ArrayList<>();
+        for (int i = 0; i < Collections.max(levels); i++) {
+            users.add(VirtualUser.signIn(client, "loadtest-" + i));
+        }
+        Catalog catalog = Catalog.sample(client, users.get(0).getToken());
+        System.out.printf("Signed in %d users, sampled %d games and %d tags from %s%n",
+                users.size(), catalog.getSampledGameCount(), catalog.getTagCount(), url);
+
+        List<LevelResult> results = new ArrayList<>();
+        for (int concurrency : levels) {
+            LevelResult result = runLevel(client, catalog, users.subList(0, concurrency), seed, warmup, duration);
+            print(result);
+            results.add(result);
+        }
+        RunResult run = new RunResult(url, seed, results);
+        Files.createDirectories(resultPath.toAbsolutePath().getParent());
+        objectMapper.writeValue(resultPath.toFile(), run);
+        System.out.println("Results written to " + resultPath);
+
+        if (!Files.exists(baselinePath)) {
+            System.out.println("No baseline at " + baselinePath + "; copy the results there to record one.");
+            return;
+        }
+        RunResult baseline = objectMapper.readValue(baselinePath.toFile(), RunResult.class);
+        List<String> regressions = new BaselineComparison(tolerance).regressions(baseline, run);
+        if (regressions.isEmpty()) {
+            System.out.printf("No regressions against %s (tolerance %.0f%%)%n", baselinePath, tolerance * 100);
+            return;
+        }
+        System.out.printf("%d regressions against %s (tolerance %.0f%%):%n", regressions.size(), baselinePath, tolerance * 100);
+        regressions.forEach(regression -> System.out.println("  " + regression));
+        System.exit(1);
+    }
+
+    private static LevelResult runLevel(GamedbClient client, Catalog catalog, List<VirtualUser> users, long seed,
+                                        int warmupSeconds, int seconds) throws Exception {
+        System.out.printf("%nConcurrency %d: %d s warmup, %d s recorded%n", users.size(), warmupSeconds, seconds);
+        long recordFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = recordFrom + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService executor = Executors.newFixedThreadPool(users.size());
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int i = 0; i < users.size(); i++) {
+                VirtualUser user = users.get(i);
+                long userSeed = seed + i;
+                tasks.add(() -> {
+                    user.run(client, catalog, userSeed, recordFrom, end);
+                    return null;
+                });
+            }
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<String, EndpointResult> endpoints = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            Histogram latencies = new Histogram(3);
+            long errors = 0;
+            for (VirtualUser user : users) {
+                Histogram recorded = user.getLatencies().get(operation);
+                if (recorded != null) {
+                    latencies.add(recorded);
+                }
+                errors += user.getErrors(operation);
+            }
+            if (latencies.getTotalCount() == 0) {
+                continue;
+            }
+            endpoints.put(operation.getEndpoint(), new EndpointResult(
+                    latencies.getTotalCount(),
+                    errors,
+                    (double) latencies.getTotalCount() / seconds,
+                    millis(latencies, 50),
+                    millis(latencies, 95),
+                    millis(latencies, 99)));
+        }
+        return new LevelResult(users.size(), seconds, endpoints);
+    }
+
+    private static double millis(Histogram latencies, double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static void print(LevelResult level) {
+        System.out.printf("%-42s %9s %8s %9s %9s %9s%n", "Endpoint", "req/s", "errors", "p50 ms", "p95 ms", "p99 ms");
+        level.endpoints().forEach((endpoint, result) -> System.out.printf("%-42s %9.1f %8d %9.1f %9.1f %9.1f%n",
+                endpoint, result.throughput(), result.errors(), result.p50(), result.p95(), result.p99()));
+    }
+}
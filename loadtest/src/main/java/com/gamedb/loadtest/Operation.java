@@ -0,0 +1,81 @@
+package com.gamedb.loadtest;
+
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * The requests a virtual user makes, with how often each is picked. Browsing, search
+ * and tag autocomplete are anonymous; the favorite endpoints carry the user's token.
+ */
+enum Operation {
+    BROWSE("GET /api/games", 30),
+    SEARCH("GET /api/games/search", 25),
+    TAG_AUTOCOMPLETE("GET /api/games/tags/search", 20),
+    LOGIN("POST /api/auth/login", 5),
+    TOGGLE_FAVORITE("POST /api/user/favorites/game/{id}", 10),
+    RECOMMENDATIONS("GET /api/user/favorites/recommendations", 10);
+
+    private static final int TOTAL_WEIGHT = 100;
+
+    private final String endpoint;
+    private final int weight;
+
+    Operation(String endpoint, int weight) {
+        this.endpoint = endpoint;
+        this.weight = weight;
+    }
+
+    String getEndpoint() {
+        return endpoint;
+    }
+
+    static Operation pick(Random random) {
+        int roll = random.nextInt(TOTAL_WEIGHT);
+        for (Operation operation : values()) {
+            roll -= operation.weight;
+            if (roll < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("Operation weights do not add up to " + TOTAL_WEIGHT);
+    }
+
+    HttpRequest request(GamedbClient client, Catalog catalog, VirtualUser user, Random random) {
+        switch (this) {
+            case BROWSE:
+                return client.get("/api/games?size=30&page=" + catalog.browsePage(random), null);
+            case SEARCH:
+                return client.get("/api/games/search?" + searchQuery(catalog, random), null);
+            case TAG_AUTOCOMPLETE:
+                return client.get("/api/games/tags/search?limit=10&prefix=" + encode(catalog.tagPrefix(random)), null);
+            case LOGIN:
+                return client.post("/api/auth/login", user.credentials(), null);
+            case TOGGLE_FAVORITE:
+                return client.post("/api/user/favorites/game/" + catalog.gameId(random), null, user.getToken());
+            case RECOMMENDATIONS:
+                return client.get("/api/user/favorites/recommendations?page=0&size=10", user.getToken());
+            default:
+                throw new IllegalStateException("Unhandled operation " + this);
+        }
+    }
+
+    // Title only, a single tag, or both; mostly first pages, as people rarely page far into results.
+    private static String searchQuery(Catalog catalog, Random random) {
+        int page = random.nextInt(10) < 8 ? 0 : 1 + random.nextInt(3);
+        String query = "size=10&page=" + page;
+        int shape = random.nextInt(10);
+        if (shape < 4 || shape >= 7) {
+            query += "&title=" + encode(catalog.titleWord(random));
+        }
+        if (shape >= 4) {
+            query += "&tags=" + encode(catalog.tagName(random));
+        }
+        return query;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
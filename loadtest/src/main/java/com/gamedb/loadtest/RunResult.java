@@ -0,0 +1,9 @@
+package com.gamedb.loadtest;
+
+import java.util.List;
+
+/**
+ * A whole run as written to the result file, and as read back when it serves as a baseline.
+ */
+record RunResult(String url, long seed, List<LevelResult> levels) {
+}
@@ -0,0 +1,96 @@
+package com.gamedb.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One account sending requests back to back, without think time, so the load at a level
+ * is exactly its number of virtual users. Each user has its own seeded random source and
+ * its own histograms, so runs replay the same request sequence and recording needs no
+ * locking.
+ */
+final class VirtualUser {
+    static final String PASSWORD = "loadtest-password";
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final int SETUP_ATTEMPTS = 10;
+
+    private final String username;
+    private final String token;
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, Long> errors = new EnumMap<>(Operation.class);
+
+    private VirtualUser(String username, String token) {
+        this.username = username;
+        this.token = token;
+    }
+
+    /**
+     * Registers the account, or logs in when it exists from an earlier run. Password
+     * hashing on the backend is bounded, so a busy response is retried after the delay
+     * it asks for.
+     */
+    static VirtualUser signIn(GamedbClient client, String username) throws IOException, InterruptedException {
+        Map<String, String> credentials = Map.of("username", username, "password", PASSWORD);
+        for (int attempt = 0; attempt < SETUP_ATTEMPTS; attempt++) {
+            HttpResponse<byte[]> response = client.exchange(client.post("/api/auth/register", credentials, null));
+            if (response.statusCode() != 200) {
+                response = client.exchange(client.post("/api/auth/login", credentials, null));
+            }
+            if (response.statusCode() == 200) {
+                return new VirtualUser(username, client.readJson(response.body()).get("token").asText());
+            }
+            if (response.statusCode() != 503) {
+                throw new IOException("Cannot sign in " + username + ": login returned " + response.statusCode());
+            }
+            long retryAfter = response.headers().firstValueAsLong("Retry-After").orElse(1);
+            Thread.sleep(TimeUnit.SECONDS.toMillis(retryAfter));
+        }
+        throw new IOException("Cannot sign in " + username + ": the backend stayed busy");
+    }
+
+    Map<String, String> credentials() {
+        return Map.of("username", username, "password", PASSWORD);
+    }
+
+    String getToken() {
+        return token;
+    }
+
+    /**
+     * Sends requests until {@code endNanos}, recording only those started after
+     * {@code recordFromNanos}.
+     */
+    void run(GamedbClient client, Catalog catalog, long seed, long recordFromNanos, long endNanos) {
+        latencies.clear();
+        errors.clear();
+        Random random = new Random(seed);
+        long now = System.nanoTime();
+        while (now < endNanos && !Thread.currentThread().isInterrupted()) {
+            Operation operation = Operation.pick(random);
+            int status = client.send(operation.request(client, catalog, this, random));
+            long finished = System.nanoTime();
+            if (now >= recordFromNanos) {
+                if (status < 200 || status >= 300) {
+                    errors.merge(operation, 1L, Long::sum);
+                }
+                latencies.computeIfAbsent(operation, o -> new Histogram(MAX_LATENCY_MICROS, 3))
+                        .recordValue(Math.min(MAX_LATENCY_MICROS, TimeUnit.NANOSECONDS.toMicros(finished - now)));
+            }
+            now = finished;
+        }
+    }
+
+    Map<Operation, Histogram> getLatencies() {
+        return latencies;
+    }
+
+    long getErrors(Operation operation) {
+        return errors.getOrDefault(operation, 0L);
+    }
+}